@@ -0,0 +1,107 @@
+package com.github.cs4j;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing and next() for realistic and pathological expressions. Parameter format: expression|time zone.
+ * {@code next} starts from times spread over years and leaves the cached time zone period on most calls,
+ * {@code nextSequence} follows the sequence of times like a scheduled task. Run with {@code -prof gc} to see
+ * allocations: {@code gc.alloc.rate.norm} of {@code nextSequence} is close to 0, only a call that leaves the cached
+ * period allocates.
+ * Day of month and day of week combinations must match within a year (e.g. the first Monday of a month):
+ * the generator rejects longer searches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CronSequenceGeneratorBenchmark {
+
+    /**
+     * 2018-01-01T00:00:00Z
+     */
+    private static final long START_TIME = 1514764800000L;
+
+    /**
+     * Start times are spread over ~12 years.
+     */
+    private static final long TIME_STEP = 373 * 86_400_000L + 3_600_000L + 61_000L;
+
+    private static final long TIME_RANGE = 12 * 365 * 86_400_000L;
+
+    @Param({
+            "*/15 * * * * *|UTC",
+            "0 0 12 * * MON-FRI|Europe/Berlin",
+            "0 */5 9-17 * * MON-FRI|America/New_York",
+            "0 30 2 * * *|Europe/Berlin",
+            "0 0 0 * * *|America/Sao_Paulo",
+            "0 0 0 29 2 *|UTC",
+            "0 0 0 1-7 * MON|UTC",
+            "0 0 0 25-31 * FRI|Australia/Lord_Howe"
+    })
+    public String expression;
+
+    private String cron;
+
+    private TimeZone timeZone;
+
+    private CronSequenceGenerator generator;
+
+    private final long[] startTimes = new long[1024];
+
+    private int index;
+
+    private long time;
+
+    @Setup
+    public void setUp() {
+        int separator = expression.indexOf('|');
+        cron = expression.substring(0, separator);
+        timeZone = TimeZone.getTimeZone(expression.substring(separator + 1));
+        generator = new CronSequenceGenerator(cron, timeZone);
+        for (int i = 0; i < startTimes.length; i++) {
+            startTimes[i] = START_TIME + (i * TIME_STEP) % TIME_RANGE;
+        }
+        time = START_TIME;
+    }
+
+    @Benchmark
+    public CronSequenceGenerator parse() {
+        return new CronSequenceGenerator(cron, timeZone);
+    }
+
+    @Benchmark
+    public long next() {
+        long time = startTimes[index++ & (startTimes.length - 1)];
+        return generator.next(time);
+    }
+
+    @Benchmark
+    public long nextSequence() {
+        long next = generator.next(time);
+        time = next < START_TIME + TIME_RANGE ? next : START_TIME;
+        return next;
+    }
+
+    /**
+     * A new generator finds where java.util time zone stops following the time zone rules on the first lookup.
+     */
+    @Benchmark
+    public long parseAndNext() {
+        return new CronSequenceGenerator(cron, timeZone).next(START_TIME);
+    }
+}
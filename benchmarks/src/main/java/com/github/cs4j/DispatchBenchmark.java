@@ -0,0 +1,108 @@
+package com.github.cs4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scheduler tick with 1k/10k/100k registered tasks. The scheduler thread stays in a long initial delay and
+ * the benchmark thread calls {@code checkAndExecute()} itself. Tasks run inline in the calling thread.
+ */
+@BenchmarkMode(org.openjdk.jmh.annotations.Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class DispatchBenchmark {
+
+    private static final CronSequenceGenerator EVERY_SECOND = new CronSequenceGenerator("* * * * * *");
+
+    private static final CronSequenceGenerator YEARLY = new CronSequenceGenerator("0 0 0 1 1 *");
+
+    /**
+     * Scheduler with tasks that are not due: the cost of a check that finds nothing to run.
+     */
+    @State(Scope.Thread)
+    public static class IdleState {
+        @Param({"1000", "10000", "100000"})
+        public int taskCount;
+
+        @Param({"DEADLINE", "TIMING_WHEEL"})
+        public Scheduler.Mode mode;
+
+        Scheduler scheduler;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            scheduler = newScheduler(mode);
+            scheduler.scheduleAll(newTasks(scheduler, taskCount, YEARLY));
+            // the first run of new tasks: they are re-queued with the next year time.
+            scheduler.schedulerThread.checkAndExecute();
+            scheduler.schedulerThread.checkAndExecute();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * New scheduler with all tasks due for every invocation: the cost of dispatching all tasks.
+     */
+    @State(Scope.Thread)
+    public static class DueState {
+        @Param({"1000", "10000", "100000"})
+        public int taskCount;
+
+        @Param({"DEADLINE", "TIMING_WHEEL"})
+        public Scheduler.Mode mode;
+
+        Scheduler scheduler;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            scheduler = newScheduler(mode);
+            scheduler.scheduleAll(newTasks(scheduler, taskCount, EVERY_SECOND));
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            scheduler.shutdown();
+        }
+    }
+
+    @Benchmark
+    public long idleCheck(IdleState state) {
+        return state.scheduler.schedulerThread.checkAndExecute();
+    }
+
+    @Benchmark
+    public long dispatchAll(DueState state) {
+        return state.scheduler.schedulerThread.checkAndExecute();
+    }
+
+    private static Scheduler newScheduler(Scheduler.Mode mode) {
+        return new Scheduler(TaskExecutors.newDirectExecutor(), 1, 1, TimeUnit.HOURS, "benchmark", mode);
+    }
+
+    private static List<SchedulerTask> newTasks(Scheduler scheduler, int n, CronSequenceGenerator generator) {
+        List<SchedulerTask> tasks = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            tasks.add(new SchedulerTask(scheduler, i, () -> null, generator));
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,224 @@
+package com.github.cs4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Load test: registers a large number of tasks with mixed cron densities and runs the scheduler for a while.
+ * Reports dispatch lag percentiles, missed fires, scheduler thread CPU and allocations, and retained heap per task.
+ * <p/>
+ * Usage: {@code mvn -Pbenchmarks test-compile exec:exec -Dbenchmarks.main=com.github.cs4j.SchedulerSoak
+ * -Dbenchmarks.args="[tasks=100000] [duration=60] [threads=4] [mode=TIMING_WHEEL] [shards=1]"}. Duration is in seconds.
+ */
+public class SchedulerSoak {
+
+    /**
+     * Lag histogram resolution: 1ms buckets up to 10s, the last bucket counts all longer lags.
+     */
+    private static final int MAX_LAG_MILLIS = 10_000;
+
+    /**
+     * Time after the end of the measured period for late tasks to finish.
+     */
+    private static final long GRACE_MILLIS = 5_000;
+
+    /**
+     * Cron densities with their share of tasks in percent.
+     */
+    private static final String[][] DENSITIES = {
+            {"* * * * * *", "1"},
+            {"*/5 * * * * *", "9"},
+            {"0 * * * * *", "40"},
+            {"0 */5 * * * *", "30"},
+            {"0 0 * * * *", "20"},
+    };
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("tasks", "100000");
+        options.put("duration", "60");
+        options.put("threads", "4");
+        options.put("mode", "TIMING_WHEEL");
+        options.put("shards", "1");
+        for (String arg : args) {
+            int i = arg.indexOf('=');
+            if (i <= 0 || !options.containsKey(arg.substring(0, i))) {
+                throw new IllegalArgumentException("Unknown option: " + arg + ". Options: " + options);
+            }
+            options.put(arg.substring(0, i), arg.substring(i + 1));
+        }
+        int taskCount = Integer.parseInt(options.get("tasks"));
+        long durationMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(options.get("duration")));
+        int threads = Integer.parseInt(options.get("threads"));
+        Scheduler.Mode mode = Scheduler.Mode.valueOf(options.get("mode"));
+        int shards = Integer.parseInt(options.get("shards"));
+        System.out.println("Options: " + options);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = usedHeapAfterGc(memory);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Scheduler scheduler = new Scheduler(executor, 0, 1, TimeUnit.SECONDS, "soak", mode, shards);
+        AtomicLongArray lagHistogram = new AtomicLongArray(MAX_LAG_MILLIS + 1);
+        List<Group> groups = new ArrayList<>();
+        List<SchedulerTask> tasks = new ArrayList<>(taskCount);
+        int created = 0;
+        for (int g = 0; g < DENSITIES.length; g++) {
+            Group group = new Group(DENSITIES[g][0]);
+            groups.add(group);
+            int n = g == DENSITIES.length - 1 ? taskCount - created : taskCount * Integer.parseInt(DENSITIES[g][1]) / 100;
+            for (int i = 0; i < n; i++) {
+                tasks.add(newTask(scheduler, group, lagHistogram));
+            }
+            group.taskCount = n;
+            created += n;
+        }
+        scheduler.scheduleAll(tasks);
+        tasks = null;
+
+        // new tasks run immediately once: the measured period starts after that.
+        Thread.sleep(2_000);
+        long heapAfter = usedHeapAfterGc(memory);
+        long start = (System.currentTimeMillis() / 1000 + 1) * 1000;
+        long end = start + durationMillis;
+        for (Group group : groups) {
+            group.start = start;
+            group.end = end;
+        }
+
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        List<Scheduler.SchedulerThread> schedulerThreads = scheduler.getShards();
+        Thread.sleep(Math.max(0, start - System.currentTimeMillis()));
+        long cpuStart = cpuTime(threadBean, schedulerThreads);
+        long allocatedStart = allocatedBytes(threadBean, schedulerThreads);
+        Thread.sleep(Math.max(0, end - System.currentTimeMillis()));
+        long cpuEnd = cpuTime(threadBean, schedulerThreads);
+        long allocatedEnd = allocatedBytes(threadBean, schedulerThreads);
+        Thread.sleep(GRACE_MILLIS);
+        scheduler.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        System.out.println();
+        System.out.printf("Tasks: %d, measured: %d s%n", taskCount, durationMillis / 1000);
+        long expectedTotal = 0;
+        long firedTotal = 0;
+        for (Group group : groups) {
+            long expected = group.generator.stream(start - 1, end - 1).count() * group.taskCount;
+            long fired = group.fired.get();
+            expectedTotal += expected;
+            firedTotal += fired;
+            System.out.printf("  %-16s tasks: %7d, expected fires: %9d, fired: %9d, missed: %d%n",
+                    group.expression, group.taskCount, expected, fired, Math.max(0, expected - fired));
+        }
+        System.out.printf("Fires: %d, missed: %d%n", firedTotal, Math.max(0, expectedTotal - firedTotal));
+        System.out.printf("Lag ms: p50 %s, p90 %s, p99 %s, p99.9 %s, max %s%n",
+                percentile(lagHistogram, 0.5), percentile(lagHistogram, 0.9), percentile(lagHistogram, 0.99),
+                percentile(lagHistogram, 0.999), percentile(lagHistogram, 1));
+        if (cpuEnd >= 0) {
+            long cpuNanos = cpuEnd - cpuStart;
+            System.out.printf("Scheduler threads CPU: %d ms, %.2f%% of one core%n", TimeUnit.NANOSECONDS.toMillis(cpuNanos),
+                    100.0 * cpuNanos / TimeUnit.MILLISECONDS.toNanos(durationMillis));
+        }
+        if (allocatedEnd >= 0) {
+            System.out.printf("Scheduler threads allocation rate: %.1f KB/s%n", (allocatedEnd - allocatedStart) / 1024.0 / (durationMillis / 1000.0));
+        }
+        System.out.printf("Retained heap per task: %d bytes%n", (heapAfter - heapBefore) / Math.max(1, taskCount));
+        for (Scheduler.SchedulerThread shard : schedulerThreads) {
+            System.out.printf("Shard %d: dispatched %d, max lag %d ms%n", shard.shardIndex, shard.getDispatchedCount(), shard.getMaxLagMillis());
+        }
+    }
+
+    private static SchedulerTask newTask(Scheduler scheduler, Group group, AtomicLongArray lagHistogram) {
+        SchedulerTask[] self = new SchedulerTask[1];
+        self[0] = new SchedulerTask(scheduler, group, () -> {
+            // the next executing time is updated when the run is finished: it is the planned time now.
+            long planned = self[0].getNextExecutingTime();
+            if (planned >= group.start && planned < group.end) {
+                long lag = Math.max(0, self[0].getLastExecutingTime() - planned);
+                lagHistogram.incrementAndGet((int) Math.min(lag, MAX_LAG_MILLIS));
+                group.fired.incrementAndGet();
+            }
+            return null;
+        }, group.generator);
+        return self[0];
+    }
+
+    private static String percentile(AtomicLongArray histogram, double p) {
+        long total = 0;
+        for (int i = 0; i < histogram.length(); i++) {
+            total += histogram.get(i);
+        }
+        if (total == 0) {
+            return "n/a";
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * p));
+        long count = 0;
+        for (int i = 0; i < histogram.length(); i++) {
+            count += histogram.get(i);
+            if (count >= rank) {
+                return i == MAX_LAG_MILLIS ? ">" + MAX_LAG_MILLIS : String.valueOf(i);
+            }
+        }
+        return "n/a";
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * @return total CPU time of the threads in nanoseconds or -1 if not supported.
+     */
+    private static long cpuTime(ThreadMXBean bean, List<? extends Thread> threads) {
+        if (!bean.isThreadCpuTimeSupported()) {
+            return -1;
+        }
+        long total = 0;
+        for (Thread t : threads) {
+            total += Math.max(0, bean.getThreadCpuTime(t.getId()));
+        }
+        return total;
+    }
+
+    /**
+     * @return total bytes allocated by the threads or -1 if not supported by the JVM.
+     */
+    private static long allocatedBytes(ThreadMXBean bean, List<? extends Thread> threads) {
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        long total = 0;
+        for (Thread t : threads) {
+            total += Math.max(0, ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(t.getId()));
+        }
+        return total;
+    }
+
+    private static final class Group {
+        final String expression;
+        final CronSequenceGenerator generator;
+        final AtomicLong fired = new AtomicLong();
+        int taskCount;
+        volatile long start = Long.MAX_VALUE;
+        volatile long end = Long.MAX_VALUE;
+
+        Group(String expression) {
+            this.expression = expression;
+            this.generator = new CronSequenceGenerator(expression);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.github.cs4j;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Event logger that takes logging off the dispatch path: events are published into a bounded lock-free ring buffer
+ * and passed to the delegate by a separate consumer thread. Publishing never blocks: when the buffer is full
+ * the event is dropped and counted, see {@link #getDroppedCount()}.
+ * <p/>
+ * Events are delivered in the order they are published. The delegate is called by the consumer thread only.
+ */
+public class AsyncEventLogger implements EventLogger, AutoCloseable {
+
+    private static final int CHECK_INTERVAL = 0;
+    private static final int ERROR = 1;
+    private static final int BEFORE_EXECUTE = 2;
+    private static final int EXECUTOR_SATURATED = 3;
+
+    @NotNull
+    public final EventLogger delegate;
+
+    /**
+     * Preallocated events: publishing does not allocate.
+     */
+    @NotNull
+    private final Event[] events;
+
+    /**
+     * Slot sequences: a slot with sequence equal to the position is free for the producer of the position and
+     * a slot with sequence equal to position + 1 is ready for the consumer.
+     */
+    @NotNull
+    private final AtomicLongArray sequences;
+
+    private final int mask;
+
+    /**
+     * Position of the next published event.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Position of the next consumed event. Accessed by the consumer thread only.
+     */
+    private long head;
+
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder deliveredCount = new LongAdder();
+
+    @NotNull
+    private final Thread consumer;
+
+    /**
+     * Set by the consumer before it parks: producers unpark it only when it is set.
+     */
+    private volatile boolean consumerWaiting;
+
+    private volatile boolean closed;
+
+    /**
+     * Creates the logger and starts the consumer thread.
+     *
+     * @param capacity buffer size. Rounded up to a power of two.
+     */
+    public AsyncEventLogger(@NotNull EventLogger delegate, int capacity, @NotNull String threadName) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be in [1, 2^30]. Value: " + capacity);
+        }
+        this.delegate = delegate;
+        int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        mask = size - 1;
+        events = new Event[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            events[i] = new Event();
+            sequences.set(i, i);
+        }
+        consumer = new Thread(this::consume, threadName);
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @Override
+    public void onCheckInterval() {
+        publish(CHECK_INTERVAL, null, null, null, null);
+    }
+
+    @Override
+    public void onError(@NotNull String message, @Nullable Exception e) {
+        publish(ERROR, message, e, null, null);
+    }
+
+    @Override
+    public void onBeforeExecute(@NotNull SchedulerTask task) {
+        publish(BEFORE_EXECUTE, null, null, task, null);
+    }
+
+    @Override
+    public void onExecutorSaturated(@NotNull ExecutorGroup group, @NotNull SchedulerTask task) {
+        publish(EXECUTOR_SATURATED, null, null, task, group);
+    }
+
+    /**
+     * @return number of events dropped because the buffer was full or the logger was closed.
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * @return number of events passed to the delegate.
+     */
+    public long getDeliveredCount() {
+        return deliveredCount.sum();
+    }
+
+    /**
+     * @return buffer size.
+     */
+    public int getCapacity() {
+        return events.length;
+    }
+
+    /**
+     * Stops the consumer thread after all published events are delivered and waits for it. Events published
+     * after this call are dropped, events published concurrently with it may be not delivered.
+     * <p/>
+     * If the calling thread is interrupted while waiting, the method returns without waiting for the remaining
+     * events and the interrupt flag of the thread is restored.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(consumer);
+        if (Thread.currentThread() != consumer) {
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void publish(int type, @Nullable String message, @Nullable Exception exception, @Nullable SchedulerTask task, @Nullable ExecutorGroup group) {
+        if (closed) {
+            droppedCount.increment();
+            return;
+        }
+        long pos = tail.get();
+        while (true) {
+            long sequence = sequences.get((int) pos & mask);
+            if (sequence == pos) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+                pos = tail.get();
+            } else if (sequence < pos) {
+                // the slot is not consumed yet: the buffer is full.
+                droppedCount.increment();
+                return;
+            } else {
+                // another producer took the position.
+                pos = tail.get();
+            }
+        }
+        int index = (int) pos & mask;
+        Event event = events[index];
+        event.type = type;
+        event.message = message;
+        event.exception = exception;
+        event.task = task;
+        event.group = group;
+        sequences.set(index, pos + 1);
+        if (consumerWaiting) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    /**
+     * Delivers the next event to the delegate.
+     *
+     * @return false if there are no published events.
+     */
+    private boolean deliverNext() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return false;
+        }
+        Event event = events[index];
+        int type = event.type;
+        String message = event.message;
+        Exception exception = event.exception;
+        SchedulerTask task = event.task;
+        ExecutorGroup group = event.group;
+        event.message = null;
+        event.exception = null;
+        event.task = null;
+        event.group = null;
+        // the slot is free for the producer of the position one lap ahead.
+        sequences.set(index, head + events.length);
+        head++;
+        try {
+            switch (type) {
+                case CHECK_INTERVAL:
+                    delegate.onCheckInterval();
+                    break;
+                case ERROR:
+                    //noinspection ConstantConditions
+                    delegate.onError(message, exception);
+                    break;
+                case BEFORE_EXECUTE:
+                    //noinspection ConstantConditions
+                    delegate.onBeforeExecute(task);
+                    break;
+                case EXECUTOR_SATURATED:
+                    //noinspection ConstantConditions
+                    delegate.onExecutorSaturated(group, task);
+                    break;
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Event logger failed!");
+            e.printStackTrace();
+        }
+        deliveredCount.increment();
+        return true;
+    }
+
+    private void consume() {
+        while (true) {
+            if (deliverNext()) {
+                continue;
+            }
+            if (closed) {
+                // events published before close are delivered: the flag is checked after the buffer is drained.
+                while (deliverNext()) {
+                }
+                return;
+            }
+            consumerWaiting = true;
+            // an event published after the check above may have missed the flag.
+            if (sequences.get((int) head & mask) != head + 1 && !closed) {
+                LockSupport.park(this);
+            }
+            consumerWaiting = false;
+        }
+    }
+
+    /**
+     * Mutable event stored in a buffer slot.
+     */
+    private static final class Event {
+        int type;
+        String message;
+        Exception exception;
+        SchedulerTask task;
+        ExecutorGroup group;
+    }
+}
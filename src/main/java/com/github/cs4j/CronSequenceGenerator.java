@@ -1,14 +1,13 @@
 package com.github.cs4j;
 
-import java.util.ArrayList;
-import java.util.BitSet;
-import java.util.Calendar;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
-import java.util.GregorianCalendar;
-import java.util.List;
+import java.util.Spliterator;
 import java.util.TimeZone;
+import java.util.function.LongConsumer;
 import java.util.regex.Pattern;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
 
 /**
  * Date sequence generator for a
@@ -36,19 +35,21 @@ public class CronSequenceGenerator {
 
     private final String expression;
 
-    private final TimeZone timeZone;
+    private final TimeZoneOffsets offsets;
 
-    private final BitSet months = new BitSet(12);
+    // Allowed values of the fields: bit N is set if value N is allowed.
 
-    private final BitSet daysOfMonth = new BitSet(31);
+    private final long months;
 
-    private final BitSet daysOfWeek = new BitSet(7);
+    private final long daysOfMonth;
 
-    private final BitSet hours = new BitSet(24);
+    private final long daysOfWeek;
 
-    private final BitSet minutes = new BitSet(60);
+    private final long hours;
 
-    private final BitSet seconds = new BitSet(60);
+    private final long minutes;
+
+    private final long seconds;
 
     private static final Pattern SPACE_SPLITTER = Pattern.compile("[ ]+");
 
@@ -75,8 +76,28 @@ public class CronSequenceGenerator {
      */
     public CronSequenceGenerator(String expression, TimeZone timeZone) {
         this.expression = expression;
-        this.timeZone = timeZone;
-        parse(expression);
+        this.offsets = new TimeZoneOffsets(timeZone);
+
+        String[] fields = SPACE_SPLITTER.split(expression);
+        if (fields.length != 6) {
+            throw new IllegalArgumentException(String.format(
+                    "Cron expression must consist of 6 fields (found %d in \"%s\")", fields.length, expression));
+        }
+        this.seconds = getNumberHits(fields[0], 0, 60);
+        this.minutes = getNumberHits(fields[1], 0, 60);
+        this.hours = getNumberHits(fields[2], 0, 24);
+        this.daysOfMonth = getDaysOfMonth(fields[3]);
+        this.months = getMonths(fields[4]);
+        long daysOfWeek = getDays(replaceOrdinals(fields[5], "SUN,MON,TUE,WED,THU,FRI,SAT"), 8);
+        if ((daysOfWeek & 1L << 7) != 0) {
+            // Sunday can be represented as 0 or 7
+            daysOfWeek = (daysOfWeek | 1L) & ~(1L << 7);
+        }
+        this.daysOfWeek = daysOfWeek;
+        if (this.seconds == 0 || this.minutes == 0 || this.hours == 0 || this.daysOfMonth == 0
+                || this.months == 0 || this.daysOfWeek == 0) {
+            throw new IllegalArgumentException("Cron expression has a field with no values: \"" + expression + "\"");
+        }
     }
 
     /**
@@ -100,154 +121,683 @@ public class CronSequenceGenerator {
 		4.1 If next match is in the next day then roll forwards,
 		4.2 Reset the minutes and seconds and go to 2
 		...
-		*/
 
-        Calendar calendar = new GregorianCalendar();
-        calendar.setTimeZone(this.timeZone);
-        calendar.setTimeInMillis(date);
+		The search works on local time fields packed into a single long value and reproduces all steps of the original
+		java.util.Calendar based implementation, including the way Calendar resolves local times skipped or repeated
+		on daylight saving time changes. No objects are allocated unless the search crosses a time zone transition
+		(see TimeZoneOffsets).
+		*/
 
         // First, just reset the milliseconds and try to calculate from there...
-        calendar.set(Calendar.MILLISECOND, 0);
-        long originalTimestamp = calendar.getTimeInMillis();
-        doNext(calendar, calendar.get(Calendar.YEAR));
+        long originalTimestamp = toTime(toFields(date));
+        long time = doNext(originalTimestamp, year(toFields(originalTimestamp)));
 
-        if (calendar.getTimeInMillis() == originalTimestamp) {
+        if (time == originalTimestamp) {
             // We arrived at the original timestamp - round up to the next whole second and try again...
-            calendar.add(Calendar.SECOND, 1);
-            doNext(calendar, calendar.get(Calendar.YEAR));
+            time = originalTimestamp + SECOND_MILLIS;
+            time = doNext(time, year(toFields(time)));
+        }
+
+        return time;
+    }
+
+    /**
+     * Fills the array with the next values in the sequence: the first value is {@code next(date)},
+     * every other value is {@code next()} of the previous one. Values within the same day or on the next matching day
+     * of the year are found without a full search, so this is much faster than calling {@link #next(long)} in a loop
+     * for sub-daily, daily and weekly patterns. Values of monthly and yearly patterns take a full search each.
+     *
+     * @param date   a seed value
+     * @param result array to store the values to
+     * @return number of values stored: length of the array
+     */
+    public int nextTimes(long date, long[] result) {
+        return nextTimes(date, Long.MAX_VALUE, result);
+    }
+
+    /**
+     * Same as {@link #nextTimes(long, long[])} but stops on the first value after the end date.
+     *
+     * @param date    a seed value
+     * @param endDate the last value that can be stored (inclusive)
+     * @param result  array to store the values to
+     * @return number of values stored
+     */
+    public int nextTimes(long date, long endDate, long[] result) {
+        int n = 0;
+        long time = date;
+        while (n < result.length) {
+            time = n == 0 ? next(time) : nextAfterMatch(time);
+            if (time > endDate) {
+                break;
+            }
+            result[n++] = time;
+        }
+        return n;
+    }
+
+    /**
+     * Counts the values that {@link #nextTimes(long, long, long[])} stores into an array of the given length
+     * without storing them.
+     *
+     * @param date    a seed value
+     * @param endDate the last value that can be counted (inclusive)
+     * @param limit   the maximum number of values to count
+     * @return number of values, not more than the limit
+     */
+    public int countTimes(long date, long endDate, int limit) {
+        int n = 0;
+        long time = date;
+        while (n < limit) {
+            time = n == 0 ? next(time) : nextAfterMatch(time);
+            if (time > endDate) {
+                break;
+            }
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Checks if the time matches the Cron pattern: its local time fields match all fields of the pattern.
+     * Milliseconds are ignored.
+     *
+     * @param date the time to check
+     * @return true if the time matches the pattern
+     */
+    public boolean matches(long date) {
+        return matchesFields(toFields(date));
+    }
+
+    /**
+     * Checks the time against many patterns. Local time fields are computed only once for all generators
+     * with the same time zone offset at the given time.
+     *
+     * @param date       the time to check
+     * @param generators generators to check
+     * @param result     array to store {@link #matches(long)} result for every generator: must not be shorter than generators
+     * @return number of generators that match the time
+     */
+    public static int matches(long date, CronSequenceGenerator[] generators, boolean[] result) {
+        if (result.length < generators.length) {
+            throw new IllegalArgumentException("Result array is too short: " + result.length + " < " + generators.length);
+        }
+        int count = 0;
+        long fields = 0;
+        int fieldsOffset = 0;
+        boolean hasFields = false;
+        for (int i = 0; i < generators.length; i++) {
+            CronSequenceGenerator g = generators[i];
+            int offset = g.offsets.getOffset(date);
+            if (!hasFields || offset != fieldsOffset) {
+                fields = toLocalFields(date + offset);
+                fieldsOffset = offset;
+                hasFields = true;
+            }
+            boolean matches = g.matchesFields(fields);
+            result[i] = matches;
+            if (matches) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean matchesFields(long fields) {
+        return isSet(this.seconds, second(fields)) && isSet(this.minutes, minute(fields)) && isSet(this.hours, hour(fields))
+                && isSet(this.daysOfMonth, day(fields)) && isSet(this.months, month(fields))
+                && isSet(this.daysOfWeek, dayOfWeek(fields));
+    }
+
+    /**
+     * Get the latest time matching the Cron pattern at or before the value provided. A time matches the pattern if
+     * its local time fields match: on daylight saving time changes local times that don't exist never match
+     * and both instants of a repeated local time match.
+     *
+     * @param date a seed value
+     * @return the previous value matching the pattern, with a whole number of seconds
+     */
+    public long previous(long date) {
+        long time = Math.floorDiv(date, SECOND_MILLIS) * SECOND_MILLIS;
+        int minYear = year(toFields(time)) - MAX_PREVIOUS_YEARS;
+        while (true) {
+            int offset = offsets.getOffset(time);
+            long localResult = previousLocalTime(time + offset, minYear);
+            long result = localResult - offset;
+            if (offsets.getOffset(result) == offset) {
+                // a repeated local time resolves to the offset after the transition: the later instant comes first.
+                int laterOffset = offsets.getOffsetByLocalTime(localResult);
+                long later = localResult - laterOffset;
+                if (later > result && later <= time && offsets.getOffset(later) == laterOffset) {
+                    return later;
+                }
+                return result;
+            }
+            // there is an offset change in (result, time] range: continue from the last second before the change.
+            long before = result;
+            long after = time;
+            while (after - before > SECOND_MILLIS) {
+                long middle = before + (after - before) / (2 * SECOND_MILLIS) * SECOND_MILLIS;
+                if (offsets.getOffset(middle) == offset) {
+                    after = middle;
+                } else {
+                    before = middle;
+                }
+            }
+            time = before;
+        }
+    }
+
+    /**
+     * Finds the latest local time matching all fields at or before the given local time.
+     *
+     * @param localTime local time with whole number of seconds.
+     * @param minYear   the search fails if no match is found after this year.
+     */
+    private long previousLocalTime(long localTime, int minYear) {
+        while (true) {
+            long fields = toLocalFields(localTime);
+            if (year(fields) < minYear) {
+                throw new IllegalArgumentException("Invalid cron expression \"" + this.expression +
+                        "\" led to runaway search for previous trigger");
+            }
+            long dayStart = Math.floorDiv(localTime, DAY_MILLIS) * DAY_MILLIS;
+            if (!isSet(this.months, month(fields))) {
+                // the last second of the previous month
+                localTime = dayStart - (day(fields) - 1) * DAY_MILLIS - SECOND_MILLIS;
+                continue;
+            }
+            if (!isSet(this.daysOfMonth, day(fields)) || !isSet(this.daysOfWeek, dayOfWeek(fields))) {
+                localTime = dayStart - SECOND_MILLIS;
+                continue;
+            }
+            int hour = previousSetBit(this.hours, hour(fields));
+            if (hour == -1) {
+                localTime = dayStart - SECOND_MILLIS;
+                continue;
+            }
+            if (hour != hour(fields)) {
+                localTime = dayStart + hour * HOUR_MILLIS + HOUR_MILLIS - SECOND_MILLIS;
+                continue;
+            }
+            long hourStart = dayStart + hour * HOUR_MILLIS;
+            int minute = previousSetBit(this.minutes, minute(fields));
+            if (minute == -1) {
+                localTime = hourStart - SECOND_MILLIS;
+                continue;
+            }
+            long minuteStart = hourStart + minute * MINUTE_MILLIS;
+            int second = minute == minute(fields) ? previousSetBit(this.seconds, second(fields)) : previousSetBit(this.seconds, 59);
+            if (second == -1) {
+                localTime = minuteStart - SECOND_MILLIS;
+                continue;
+            }
+            return minuteStart + second * SECOND_MILLIS;
+        }
+    }
+
+    /**
+     * Returns a lazy stream of the values in the sequence after the date and not after the end date: the same values
+     * as {@link #nextTimes(long, long, long[])} returns. The stream can be split for parallel processing by time range:
+     * every part continues the sequence from the latest time matching the pattern before its range.
+     *
+     * @param date    a seed value
+     * @param endDate the last value that can be returned (inclusive)
+     */
+    public LongStream stream(long date, long endDate) {
+        return StreamSupport.longStream(new TimeSpliterator(date, endDate, date, false), false);
+    }
+
+    /**
+     * Same as {@link #next(long)}. If the time matches the pattern looks for the next time in the same day and then
+     * for the first time of the next matching day (see {@link #nextDay(long)}): the result is the same as for a full
+     * search unless there is a time zone offset change between the values. Times that do not match (next() can return
+     * them) are passed to the full search.
+     */
+    private long nextAfterMatch(long time) {
+        long fields = toFields(time);
+        if (!matchesFields(fields)) {
+            return next(time);
         }
+        int second = nextSetBit(this.seconds, second(fields) + 1);
+        if (second != -1) {
+            fields = setField(fields, SECOND, second);
+        } else {
+            int minute = nextSetBit(this.minutes, minute(fields) + 1);
+            if (minute != -1) {
+                fields = setField(setField(fields, MINUTE, minute), SECOND, nextSetBit(this.seconds, 0));
+            } else {
+                int hour = nextSetBit(this.hours, hour(fields) + 1);
+                if (hour == -1) {
+                    fields = nextDay(fields);
+                    if (fields == -1) {
+                        return next(time);
+                    }
+                    hour = nextSetBit(this.hours, 0);
+                }
+                fields = setField(setField(setField(fields, HOUR, hour), MINUTE, nextSetBit(this.minutes, 0)),
+                        SECOND, nextSetBit(this.seconds, 0));
+            }
+        }
+        long nextTime = toTime(fields);
+        if (toFields(nextTime) != fields || offsets.getOffset(nextTime) != offsets.getOffset(time)) {
+            return next(time);
+        }
+        return nextTime;
+    }
 
-        return calendar.getTimeInMillis();
+    /**
+     * Finds the first day after the day of the fields that matches day of month and day of week fields, as the day
+     * search of {@link #next(long)} does. The search stops at the end of the year.
+     *
+     * @return local time fields with the month and the day of the found day or -1 if the full search is needed:
+     * there is no such day, its month does not match or it is not the next day but has the same day of month
+     * as the next day. next() rolls the hour over to the next day first and takes such day for an unchanged day:
+     * its time fields are not searched.
+     */
+    private long nextDay(long fields) {
+        int year = year(fields);
+        int month = month(fields);
+        int day = day(fields) + 1;
+        int dayOfWeek = (dayOfWeek(fields) + 1) % 7;
+        int nextDay = day > monthLength(year, month) ? 1 : day;
+        boolean first = true;
+        for (; month < 12; month++, day = 1) {
+            int monthLength = monthLength(year, month);
+            for (; day <= monthLength; day++, dayOfWeek = (dayOfWeek + 1) % 7, first = false) {
+                if (isSet(this.daysOfMonth, day) && isSet(this.daysOfWeek, dayOfWeek)) {
+                    return isSet(this.months, month) && (first || day != nextDay) ? setField(setField(fields, MONTH, month), DAY, day) : -1;
+                }
+            }
+        }
+        return -1;
     }
 
-    private void doNext(Calendar calendar, int dot) {
-        List<Integer> resets = new ArrayList<>();
+    /**
+     * Spliterator over the values in (from, endDate] range.
+     */
+    private final class TimeSpliterator implements Spliterator.OfLong {
+
+        /**
+         * Ranges shorter than this are not split.
+         */
+        private static final long MIN_SPLIT_MILLIS = 2 * SECOND_MILLIS;
+
+        /**
+         * Values not after this time are skipped: the start of the range or the last returned value.
+         */
+        private long from;
+
+        private final long endDate;
+
+        /**
+         * The seed value the sequence is continued from.
+         */
+        private long date;
+
+        /**
+         * True if the date is a value of the sequence.
+         */
+        private boolean started;
+
+        private boolean finished;
+
+        TimeSpliterator(long from, long endDate, long date, boolean started) {
+            this.from = from;
+            this.endDate = endDate;
+            this.date = date;
+            this.started = started;
+            this.finished = from >= endDate;
+        }
 
-        int second = calendar.get(Calendar.SECOND);
-        List<Integer> emptyList = Collections.emptyList();
-        int updateSecond = findNext(this.seconds, second, calendar, Calendar.SECOND, Calendar.MINUTE, emptyList);
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            if (finished) {
+                return false;
+            }
+            while (true) {
+                long time = started ? nextAfterMatch(date) : next(date);
+                if (time > endDate) {
+                    finished = true;
+                    return false;
+                }
+                date = time;
+                started = true;
+                if (time > from) {
+                    from = time;
+                    action.accept(time);
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            // the range length may not fit into a signed long
+            if (finished || Long.compareUnsigned(endDate - from, MIN_SPLIT_MILLIS) < 0) {
+                return null;
+            }
+            long middle = from + ((endDate - from) >>> 1);
+            TimeSpliterator prefix = new TimeSpliterator(from, middle, date, started);
+            // the suffix continues the sequence from the last match not after the middle: the sequence passes
+            // through every match, so the values do not depend on how the stream is split.
+            long resume;
+            try {
+                resume = previous(middle);
+            } catch (IllegalArgumentException e) {
+                // no match for many years: continue from the seed.
+                resume = date;
+            }
+            if (resume > date) {
+                date = resume;
+                started = true;
+            }
+            from = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            // at most one value per second
+            return finished ? 0 : Long.divideUnsigned(endDate - from, SECOND_MILLIS) + 1;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | SORTED | NONNULL | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            return null;
+        }
+    }
+
+    /**
+     * Finds the first time matching all fields starting from the given time.
+     * Field updates are applied to the local time fields only: the fields are resolved to a time (normalized) when
+     * they are read next time, exactly as java.util.Calendar does it. Every frame starts and returns a normalized time.
+     *
+     * @param time a seed value with whole number of seconds.
+     * @param dot  the year of the seed value used to detect a runaway search.
+     */
+    private long doNext(long time, int dot) {
+        int resets = 0;
+
+        long fields = toFields(time);
+        int second = second(fields);
+        int updateSecond = nextSetBit(this.seconds, second);
+        if (updateSecond == -1) {
+            time += MINUTE_MILLIS;
+            fields = setField(toFields(time), SECOND, 0);
+            updateSecond = nextSetBit(this.seconds, 0);
+        }
         if (second == updateSecond) {
-            resets.add(Calendar.SECOND);
+            resets |= 1 << SECOND;
+        } else {
+            time = toTime(setField(fields, SECOND, updateSecond));
         }
 
-        int minute = calendar.get(Calendar.MINUTE);
-        int updateMinute = findNext(this.minutes, minute, calendar, Calendar.MINUTE, Calendar.HOUR_OF_DAY, resets);
+        fields = toFields(time);
+        int minute = minute(fields);
+        int updateMinute = nextSetBit(this.minutes, minute);
+        if (updateMinute == -1) {
+            time += HOUR_MILLIS;
+            fields = setField(toFields(time), MINUTE, 0);
+            updateMinute = nextSetBit(this.minutes, 0);
+        }
         if (minute == updateMinute) {
-            resets.add(Calendar.MINUTE);
+            resets |= 1 << MINUTE;
         } else {
-            doNext(calendar, dot);
+            time = doNext(toTime(reset(setField(fields, MINUTE, updateMinute), resets)), dot);
         }
 
-        int hour = calendar.get(Calendar.HOUR_OF_DAY);
-        int updateHour = findNext(this.hours, hour, calendar, Calendar.HOUR_OF_DAY, Calendar.DAY_OF_WEEK, resets);
+        fields = toFields(time);
+        int hour = hour(fields);
+        int updateHour = nextSetBit(this.hours, hour);
+        if (updateHour == -1) {
+            time = plusDay(time);
+            fields = setField(toFields(time), HOUR, 0);
+            updateHour = nextSetBit(this.hours, 0);
+        }
         if (hour == updateHour) {
-            resets.add(Calendar.HOUR_OF_DAY);
+            resets |= 1 << HOUR;
         } else {
-            doNext(calendar, dot);
+            time = doNext(toTime(reset(setField(fields, HOUR, updateHour), resets)), dot);
         }
 
-        int dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
-        int dayOfMonth = calendar.get(Calendar.DAY_OF_MONTH);
-        int updateDayOfMonth = findNextDay(calendar, this.daysOfMonth, dayOfMonth, daysOfWeek, dayOfWeek, resets);
+        fields = toFields(time);
+        int dayOfMonth = day(fields);
+        int updateDayOfMonth = dayOfMonth;
+        int dayOfWeek = dayOfWeek(fields);
+        int count = 0;
+        int max = 366;
+        while ((!isSet(this.daysOfMonth, updateDayOfMonth) || !isSet(this.daysOfWeek, dayOfWeek)) && count++ < max) {
+            time = plusDay(time);
+            fields = toFields(time);
+            updateDayOfMonth = day(fields);
+            dayOfWeek = dayOfWeek(fields);
+            if (resets != 0) {
+                time = toTime(reset(fields, resets));
+            }
+        }
+        if (count >= max) {
+            throw new IllegalArgumentException("Overflow in day for expression \"" + this.expression + "\"");
+        }
         if (dayOfMonth == updateDayOfMonth) {
-            resets.add(Calendar.DAY_OF_MONTH);
+            resets |= 1 << DAY;
         } else {
-            doNext(calendar, dot);
+            time = doNext(time, dot);
         }
 
-        int month = calendar.get(Calendar.MONTH);
-        int updateMonth = findNext(this.months, month, calendar, Calendar.MONTH, Calendar.YEAR, resets);
+        fields = toFields(time);
+        int month = month(fields);
+        int updateMonth = nextSetBit(this.months, month);
+        if (updateMonth == -1) {
+            fields = setField(plusYear(fields), MONTH, 0);
+            updateMonth = nextSetBit(this.months, 0);
+        }
         if (month != updateMonth) {
-            if (calendar.get(Calendar.YEAR) - dot > 4) {
+            time = toTime(reset(setField(fields, MONTH, updateMonth), resets));
+            if (year(toFields(time)) - dot > 4) {
                 throw new IllegalArgumentException("Invalid cron expression \"" + this.expression +
                         "\" led to runaway search for next trigger");
             }
-            doNext(calendar, dot);
+            time = doNext(time, dot);
         }
+        return time;
+    }
 
+    /**
+     * @return index of the first bit that is set on or after the given index or -1 if there is no such bit.
+     */
+    private static int nextSetBit(long bits, int fromIndex) {
+        long remaining = bits & -1L << fromIndex;
+        return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);
     }
 
-    private int findNextDay(Calendar calendar, BitSet daysOfMonth, int dayOfMonth, BitSet daysOfWeek, int dayOfWeek,
-                            List<Integer> resets) {
+    /**
+     * @return index of the last bit that is set on or before the given index or -1 if there is no such bit.
+     */
+    private static int previousSetBit(long bits, int fromIndex) {
+        long remaining = bits & -1L >>> 63 - fromIndex;
+        return remaining == 0 ? -1 : 63 - Long.numberOfLeadingZeros(remaining);
+    }
 
-        int count = 0;
-        int max = 366;
-        // the DAY_OF_WEEK values in java.util.Calendar start with 1 (Sunday),
-        // but in the cron pattern, they start with 0, so we subtract 1 here
-        while ((!daysOfMonth.get(dayOfMonth) || !daysOfWeek.get(dayOfWeek - 1)) && count++ < max) {
-            calendar.add(Calendar.DAY_OF_MONTH, 1);
-            dayOfMonth = calendar.get(Calendar.DAY_OF_MONTH);
-            dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK);
-            reset(calendar, resets);
-        }
-        if (count >= max) {
-            throw new IllegalArgumentException("Overflow in day for expression \"" + this.expression + "\"");
+    private static boolean isSet(long bits, int index) {
+        return (bits & 1L << index) != 0;
+    }
+
+    /**
+     * Adds one day keeping the local time of the day. Same as {@link java.util.GregorianCalendar#add} for
+     * {@link java.util.Calendar#DAY_OF_MONTH} field: if the local time does not exist or is repeated in the new day
+     * the offset of the original time is used to resolve it.
+     */
+    private long plusDay(long time) {
+        int offset = offsets.getOffset(time);
+        long localTime = time + offset;
+        long day = Math.floorDiv(localTime, DAY_MILLIS) + 1;
+        long result = day * DAY_MILLIS + Math.floorMod(localTime, DAY_MILLIS) - offset;
+        int offsetDiff = offset - offsets.getOffset(result);
+        if (offsetDiff != 0) {
+            long adjusted = result + offsetDiff;
+            if (Math.floorDiv(adjusted + offsets.getOffset(adjusted), DAY_MILLIS) == day) {
+                result = adjusted;
+            }
         }
-        return dayOfMonth;
+        return result;
     }
 
     /**
-     * Search the bits provided for the next set bit after the value provided,
-     * and reset the calendar.
+     * Adds one year to the local time fields. The day of month is decreased if the month is shorter in the new year.
+     */
+    private static long plusYear(long fields) {
+        int year = year(fields) + 1;
+        int monthLength = monthLength(year, month(fields));
+        fields = setField(fields, YEAR, year);
+        return day(fields) > monthLength ? setField(fields, DAY, monthLength) : fields;
+    }
+
+    /**
+     * Resets local time fields to their minimum values.
      *
-     * @param bits        a {@link BitSet} representing the allowed values of the field
-     * @param value       the current value of the field
-     * @param calendar    the calendar to increment as we move through the bits
-     * @param field       the field to increment in the calendar (@see
-     *                    {@link Calendar} for the static constants defining valid fields)
-     * @param lowerOrders the Calendar field ids that should be reset (i.e. the
-     *                    ones of lower significance than the field of interest)
-     * @return the value of the calendar field that is next in the sequence
+     * @param mask bit mask of the fields to reset.
      */
-    private int findNext(BitSet bits, int value, Calendar calendar, int field, int nextField, List<Integer> lowerOrders) {
-        int nextValue = bits.nextSetBit(value);
-        // roll over if needed
-        if (nextValue == -1) {
-            calendar.add(nextField, 1);
-            reset(calendar, Collections.singletonList(field));
-            nextValue = bits.nextSetBit(0);
-        }
-        if (nextValue != value) {
-            calendar.set(field, nextValue);
-            reset(calendar, lowerOrders);
+    private static long reset(long fields, int mask) {
+        for (int field = SECOND; field <= DAY; field++) {
+            if ((mask & (1 << field)) != 0) {
+                fields = setField(fields, field, field == DAY ? 1 : 0);
+            }
         }
-        return nextValue;
+        return fields;
     }
 
     /**
-     * Reset the calendar setting all the fields provided to zero.
+     * Converts time to local time fields. Milliseconds are dropped.
      */
-    private void reset(Calendar calendar, List<Integer> fields) {
-        for (int field : fields) {
-            calendar.set(field, field == Calendar.DAY_OF_MONTH ? 1 : 0);
-        }
+    private long toFields(long time) {
+        return toLocalFields(time + offsets.getOffset(time));
     }
 
+    /**
+     * Converts local time (milliseconds since 1970-01-01T00:00 local time) to local time fields. Milliseconds are dropped.
+     */
+    private static long toLocalFields(long localTime) {
+        long epochDay = Math.floorDiv(localTime, DAY_MILLIS);
+        int secondOfDay = (int) (Math.floorMod(localTime, DAY_MILLIS) / SECOND_MILLIS);
+
+        // days to civil date conversion, see http://howardhinnant.github.io/date_algorithms.html
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 2 : mp - 10;
+        long year = yearOfEra + era * 400 + (month <= 1 ? 1 : 0);
+
+        return (year << YEAR_SHIFT) | ((long) month << MONTH_SHIFT) | ((long) day << DAY_SHIFT)
+                | ((long) (secondOfDay / 3600) << HOUR_SHIFT) | ((long) (secondOfDay / 60 % 60) << MINUTE_SHIFT) | (secondOfDay % 60);
+    }
 
-    // Parsing logic invoked by the constructor
+    /**
+     * Converts local time fields to time. Same as {@link java.util.GregorianCalendar} in lenient mode:
+     * day of month may be out of the month range and local time is resolved with {@link TimeZoneOffsets#getOffsetByLocalTime}.
+     */
+    private long toTime(long fields) {
+        long localTime = epochDay(year(fields), month(fields), 1) + day(fields) - 1;
+        localTime = localTime * DAY_MILLIS + ((hour(fields) * 60L + minute(fields)) * 60 + second(fields)) * SECOND_MILLIS;
+        return localTime - offsets.getOffsetByLocalTime(localTime);
+    }
 
     /**
-     * Parse the given pattern expression.
+     * @param month zero based month.
+     * @return number of days since 1970-01-01.
      */
-    private void parse(String expression) throws IllegalArgumentException {
-        String[] fields = SPACE_SPLITTER.split(expression);
-        if (fields.length != 6) {
-            throw new IllegalArgumentException(String.format(
-                    "Cron expression must consist of 6 fields (found %d in \"%s\")", fields.length, expression));
-        }
-        setNumberHits(this.seconds, fields[0], 0, 60);
-        setNumberHits(this.minutes, fields[1], 0, 60);
-        setNumberHits(this.hours, fields[2], 0, 24);
-        setDaysOfMonth(this.daysOfMonth, fields[3]);
-        setMonths(this.months, fields[4]);
-        setDays(this.daysOfWeek, replaceOrdinals(fields[5], "SUN,MON,TUE,WED,THU,FRI,SAT"), 8);
-        if (this.daysOfWeek.get(7)) {
-            // Sunday can be represented as 0 or 7
-            this.daysOfWeek.set(0);
-            this.daysOfWeek.clear(7);
+    private static long epochDay(long year, int month, int day) {
+        // civil date to days conversion, see http://howardhinnant.github.io/date_algorithms.html
+        year -= month <= 1 ? 1 : 0;
+        long era = Math.floorDiv(year, 400);
+        int yearOfEra = (int) (year - era * 400);
+        int dayOfYear = (153 * (month + (month > 1 ? -2 : 10)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int monthLength(int year, int month) {
+        return (int) (epochDay(month == 11 ? year + 1 : year, (month + 1) % 12, 1) - epochDay(year, month, 1));
+    }
+
+    // Local time fields packed into a long value: [year:24][month:8][day:8][hour:8][minute:8][second:8]
+    // Month is zero based as in java.util.Calendar.
+
+    private static final int SECOND = 0;
+    private static final int MINUTE = 1;
+    private static final int HOUR = 2;
+    private static final int DAY = 3;
+    private static final int MONTH = 4;
+    private static final int YEAR = 5;
+
+    private static final int MINUTE_SHIFT = 8;
+    private static final int HOUR_SHIFT = 16;
+    private static final int DAY_SHIFT = 24;
+    private static final int MONTH_SHIFT = 32;
+    private static final int YEAR_SHIFT = 40;
+
+    /**
+     * Search range of {@link #previous(long)}: enough to find rare dates like February 29 on Monday.
+     */
+    private static final int MAX_PREVIOUS_YEARS = 28 * 4;
+
+    private static final long SECOND_MILLIS = 1000;
+    private static final long MINUTE_MILLIS = 60 * SECOND_MILLIS;
+    private static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    private static int second(long fields) {
+        return (int) (fields & 0xFF);
+    }
+
+    private static int minute(long fields) {
+        return (int) (fields >>> MINUTE_SHIFT & 0xFF);
+    }
+
+    private static int hour(long fields) {
+        return (int) (fields >>> HOUR_SHIFT & 0xFF);
+    }
+
+    private static int day(long fields) {
+        return (int) (fields >>> DAY_SHIFT & 0xFF);
+    }
+
+    private static int month(long fields) {
+        return (int) (fields >>> MONTH_SHIFT & 0xFF);
+    }
+
+    private static int year(long fields) {
+        return (int) (fields >> YEAR_SHIFT);
+    }
+
+    /**
+     * @return day of week, 0 is Sunday.
+     */
+    private static int dayOfWeek(long fields) {
+        // 1970-01-01 is Thursday
+        return (int) Math.floorMod(epochDay(year(fields), month(fields), day(fields)) + 4, 7);
+    }
+
+    private static long setField(long fields, int field, int value) {
+        int shift = field * 8;
+        if (field == YEAR) {
+            return (fields & ~(-1L << shift)) | ((long) value << shift);
         }
+        return (fields & ~(0xFFL << shift)) | ((long) value << shift);
     }
 
+
+    // Parsing logic invoked by the constructor
+
     /**
      * Replace the values in the comma-separated list (case insensitive)
      * with their index in the list.
@@ -263,42 +813,38 @@ public class CronSequenceGenerator {
         return value;
     }
 
-    private void setDaysOfMonth(BitSet bits, String field) {
+    private long getDaysOfMonth(String field) {
         int max = 31;
         // Days of month start with 1 (in Cron and Calendar) so add one
-        setDays(bits, field, max + 1);
+        long bits = getDays(field, max + 1);
         // ... and remove it from the front
-        bits.clear(0);
+        return bits & ~1L;
     }
 
-    private void setDays(BitSet bits, String field, int max) {
+    private long getDays(String field, int max) {
         if (field.contains("?")) {
             field = "*";
         }
-        setNumberHits(bits, field, 0, max);
+        return getNumberHits(field, 0, max);
     }
 
-    private void setMonths(BitSet bits, String value) {
+    private long getMonths(String value) {
         int max = 12;
         value = replaceOrdinals(value, "FOO,JAN,FEB,MAR,APR,MAY,JUN,JUL,AUG,SEP,OCT,NOV,DEC");
-        BitSet months = new BitSet(13);
-        // Months start with 1 in Cron and 0 in Calendar, so push the values first into a longer bit set
-        setNumberHits(months, value, 1, max + 1);
-        // ... and then rotate it to the front of the months
-        for (int i = 1; i <= max; i++) {
-            if (months.get(i)) {
-                bits.set(i - 1);
-            }
-        }
+        // Months start with 1 in Cron and 0 in Calendar, so shift the values to the front of the months
+        return getNumberHits(value, 1, max + 1) >>> 1;
     }
 
-    private void setNumberHits(BitSet bits, String value, int min, int max) {
+    private long getNumberHits(String value, int min, int max) {
+        long bits = 0;
         String[] fields = value.split(",");
         for (String field : fields) {
             if (!field.contains("/")) {
                 // Not an incrementer so it must be a range (possibly empty)
                 int[] range = getRange(field, min, max);
-                bits.set(range[0], range[1] + 1);
+                if (range[0] <= range[1]) {
+                    bits |= -1L << range[0] & -1L >>> 63 - range[1];
+                }
             } else {
                 String[] split = field.split("/");
                 if (split.length > 2) {
@@ -315,10 +861,11 @@ public class CronSequenceGenerator {
                             field + "' in expression \"" + this.expression + "\"");
                 }
                 for (int i = range[0]; i <= range[1]; i += delta) {
-                    bits.set(i);
+                    bits |= 1L << i;
                 }
             }
         }
+        return bits;
     }
 
     private int[] getRange(String field, int min, int max) {
@@ -360,15 +907,23 @@ public class CronSequenceGenerator {
             return false;
         }
         CronSequenceGenerator otherCron = (CronSequenceGenerator) other;
-        return (this.months.equals(otherCron.months) && this.daysOfMonth.equals(otherCron.daysOfMonth) &&
-                this.daysOfWeek.equals(otherCron.daysOfWeek) && this.hours.equals(otherCron.hours) &&
-                this.minutes.equals(otherCron.minutes) && this.seconds.equals(otherCron.seconds));
+        return (this.months == otherCron.months && this.daysOfMonth == otherCron.daysOfMonth &&
+                this.daysOfWeek == otherCron.daysOfWeek && this.hours == otherCron.hours &&
+                this.minutes == otherCron.minutes && this.seconds == otherCron.seconds);
     }
 
     @Override
     public int hashCode() {
-        return (17 * this.months.hashCode() + 29 * this.daysOfMonth.hashCode() + 37 * this.daysOfWeek.hashCode() +
-                41 * this.hours.hashCode() + 53 * this.minutes.hashCode() + 61 * this.seconds.hashCode());
+        return (17 * hashCode(this.months) + 29 * hashCode(this.daysOfMonth) + 37 * hashCode(this.daysOfWeek) +
+                41 * hashCode(this.hours) + 53 * hashCode(this.minutes) + 61 * hashCode(this.seconds));
+    }
+
+    /**
+     * @return the same value as {@link java.util.BitSet#hashCode()} of a bit set with the given bits.
+     */
+    private static int hashCode(long bits) {
+        long h = 1234 ^ bits;
+        return (int) ((h >> 32) ^ h);
     }
 
     @Override
@@ -0,0 +1,170 @@
+package com.github.cs4j;
+
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Bounded cache of {@link CronSequenceGenerator} instances by expression and time zone.
+ * Generators are immutable, so the same instance can be shared by any number of tasks.
+ * The least recently used generator is evicted when the cache is full.
+ * <p/>
+ * Lookups do not lock: generators are kept in a {@link ConcurrentHashMap}. Only eviction is done under a lock
+ * and scans the whole cache.
+ */
+public class CronSequenceGeneratorCache {
+
+    /**
+     * Cache used by {@link Scheduler}.
+     */
+    @NotNull
+    public static final CronSequenceGeneratorCache SHARED = new CronSequenceGeneratorCache(1000);
+
+    public final int maxSize;
+
+    @NotNull
+    private final ConcurrentHashMap<Key, Entry> generators = new ConcurrentHashMap<>();
+
+    /**
+     * Source of {@link Entry#lastUsed} values.
+     */
+    @NotNull
+    private final AtomicLong useCounter = new AtomicLong();
+
+    @NotNull
+    private final Object evictionLock = new Object();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    public CronSequenceGeneratorCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be > 0. Value: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns a cached generator or creates a new one.
+     *
+     * @throws IllegalArgumentException if the expression cannot be parsed
+     */
+    @NotNull
+    public CronSequenceGenerator get(@NotNull String expression, @NotNull TimeZone timeZone) {
+        Entry entry = generators.get(new Key(expression, timeZone));
+        if (entry != null) {
+            hitCount.increment();
+            entry.lastUsed = useCounter.incrementAndGet();
+            return entry.generator;
+        }
+        missCount.increment();
+        // parsing is done out of the map: if two threads create the same generator the first one is kept.
+        // time zones are mutable: the cache keeps its own copy.
+        TimeZone timeZoneCopy = (TimeZone) timeZone.clone();
+        Entry newEntry = new Entry(new CronSequenceGenerator(expression, timeZoneCopy), useCounter.incrementAndGet());
+        Entry existing = generators.putIfAbsent(new Key(expression, timeZoneCopy), newEntry);
+        if (existing != null) {
+            return existing.generator;
+        }
+        if (generators.size() > maxSize) {
+            evict();
+        }
+        return newEntry.generator;
+    }
+
+    /**
+     * Removes the least recently used generators until the cache fits its size.
+     */
+    private void evict() {
+        synchronized (evictionLock) {
+            while (generators.size() > maxSize) {
+                Key eldest = null;
+                long eldestUse = Long.MAX_VALUE;
+                for (Map.Entry<Key, Entry> e : generators.entrySet()) {
+                    if (e.getValue().lastUsed < eldestUse) {
+                        eldest = e.getKey();
+                        eldestUse = e.getValue().lastUsed;
+                    }
+                }
+                if (eldest == null) {
+                    return;
+                }
+                generators.remove(eldest);
+            }
+        }
+    }
+
+    /**
+     * @return number of {@link #get} calls that returned a cached generator.
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return number of {@link #get} calls that created a new generator.
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public int size() {
+        return generators.size();
+    }
+
+    public void clear() {
+        generators.clear();
+    }
+
+    private static final class Entry {
+        @NotNull
+        final CronSequenceGenerator generator;
+
+        /**
+         * Value of {@link #useCounter} at the last lookup of the generator.
+         */
+        volatile long lastUsed;
+
+        Entry(@NotNull CronSequenceGenerator generator, long lastUsed) {
+            this.generator = generator;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private static final class Key {
+        @NotNull
+        private final String expression;
+
+        @NotNull
+        private final TimeZone timeZone;
+
+        private final int hashCode;
+
+        Key(@NotNull String expression, @NotNull TimeZone timeZone) {
+            this.expression = expression;
+            this.timeZone = timeZone;
+            this.hashCode = 31 * expression.hashCode() + timeZone.getID().hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return expression.equals(other.expression) && timeZone.equals(other.timeZone);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -15,4 +15,11 @@ public interface EventLogger {
 
     default void onBeforeExecute(@NotNull SchedulerTask task) {
     }
+
+    /**
+     * Called when the task is rejected by the executor of the group or has to wait for a free thread.
+     * See {@link ExecutorGroup} counters for the group stats.
+     */
+    default void onExecutorSaturated(@NotNull ExecutorGroup group, @NotNull SchedulerTask task) {
+    }
 }
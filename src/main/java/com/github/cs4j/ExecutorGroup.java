@@ -0,0 +1,98 @@
+package com.github.cs4j;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Named executor registered in {@link Scheduler}. Tasks select the group with {@link Scheduled#executor()}:
+ * tasks of different groups do not compete for threads.
+ */
+public final class ExecutorGroup {
+
+    /**
+     * Name of the group of {@link Scheduler#tasksExecutor}.
+     */
+    public static final String DEFAULT = "";
+
+    @NotNull
+    public final String name;
+
+    @NotNull
+    public final ExecutorService executor;
+
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder saturatedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Tasks submitted by the scheduler that hold an executor thread or wait for one.
+     */
+    private final AtomicInteger runningCount = new AtomicInteger();
+
+    ExecutorGroup(@NotNull String name, @NotNull ExecutorService executor) {
+        this.name = name;
+        this.executor = executor;
+    }
+
+    /**
+     * @return number of tasks submitted to the executor.
+     */
+    public long getSubmittedCount() {
+        return submittedCount.sum();
+    }
+
+    /**
+     * @return number of submitted tasks that had to wait for a free thread. Tracked for {@link ThreadPoolExecutor} only:
+     * the scheduler's own tasks are compared with the maximum pool size.
+     */
+    public long getSaturatedCount() {
+        return saturatedCount.sum();
+    }
+
+    /**
+     * @return number of tasks rejected by the executor.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * Called before the task is submitted.
+     *
+     * @return true if the executor is saturated: all threads of the pool are taken by other tasks.
+     */
+    boolean onSubmitting() {
+        int running = runningCount.getAndIncrement();
+        return executor instanceof ThreadPoolExecutor && running >= ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+    }
+
+    /**
+     * Updates counters after the task is submitted.
+     */
+    void onSubmitted(boolean saturated) {
+        submittedCount.increment();
+        if (saturated) {
+            saturatedCount.increment();
+        }
+    }
+
+    void onRejected() {
+        runningCount.decrementAndGet();
+        rejectedCount.increment();
+    }
+
+    /**
+     * Called when the submitted task releases the executor thread.
+     */
+    void onReleased() {
+        runningCount.decrementAndGet();
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutorGroup[" + name + "]";
+    }
+}
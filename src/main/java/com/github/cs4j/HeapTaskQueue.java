@@ -0,0 +1,107 @@
+package com.github.cs4j;
+
+import java.util.Arrays;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Binary heap based task queue: O(log n) insert, poll and remove.
+ * Every task keeps its position in the heap in {@link SchedulerTask#heapIndex}.
+ */
+class HeapTaskQueue implements TaskQueue {
+
+    @NotNull
+    private SchedulerTask[] heap = new SchedulerTask[16];
+
+    private int size;
+
+    @Override
+    public void add(@NotNull SchedulerTask task) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = task;
+        task.heapIndex = size;
+        siftUp(size++);
+    }
+
+    @Nullable
+    @Override
+    public SchedulerTask pollDue(long currentMillis) {
+        return size > 0 && heap[0].nextExecutingTime < currentMillis ? removeAt(0) : null;
+    }
+
+    @Override
+    public boolean remove(@NotNull SchedulerTask task) {
+        int i = task.heapIndex;
+        if (i < 0 || i >= size || heap[i] != task) {
+            return false;
+        }
+        removeAt(i);
+        return true;
+    }
+
+    @NotNull
+    private SchedulerTask removeAt(int i) {
+        SchedulerTask task = heap[i];
+        SchedulerTask last = heap[--size];
+        heap[size] = null;
+        if (i != size) {
+            heap[i] = last;
+            last.heapIndex = i;
+            siftDown(i);
+            if (heap[i] == last) {
+                siftUp(i);
+            }
+        }
+        task.heapIndex = -1;
+        return task;
+    }
+
+    private void siftUp(int i) {
+        SchedulerTask task = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            SchedulerTask p = heap[parent];
+            if (p.nextExecutingTime <= task.nextExecutingTime) {
+                break;
+            }
+            heap[i] = p;
+            p.heapIndex = i;
+            i = parent;
+        }
+        heap[i] = task;
+        task.heapIndex = i;
+    }
+
+    private void siftDown(int i) {
+        SchedulerTask task = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && heap[right].nextExecutingTime < heap[child].nextExecutingTime) {
+                child = right;
+            }
+            SchedulerTask c = heap[child];
+            if (task.nextExecutingTime <= c.nextExecutingTime) {
+                break;
+            }
+            heap[i] = c;
+            c.heapIndex = i;
+            i = child;
+        }
+        heap[i] = task;
+        task.heapIndex = i;
+    }
+
+    @Override
+    public long nextTime() {
+        return size == 0 ? Long.MAX_VALUE : heap[0].nextExecutingTime;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
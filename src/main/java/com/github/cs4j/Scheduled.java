@@ -16,4 +16,9 @@ import java.lang.annotation.Target;
 @Documented
 public @interface Scheduled {
     String cron() default "";
+
+    /**
+     * Name of the executor registered with {@link Scheduler#registerExecutor}. Empty for {@link Scheduler#tasksExecutor}.
+     */
+    String executor() default "";
 }
\ No newline at end of file
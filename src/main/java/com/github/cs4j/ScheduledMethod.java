@@ -0,0 +1,85 @@
+package com.github.cs4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Method annotated with {@link Scheduled}. Classes are scanned and validated once: the result is kept in
+ * {@link ClassValue} that does not prevent classes from unloading.
+ */
+final class ScheduledMethod {
+
+    private static final ClassValue<List<ScheduledMethod>> METHODS_BY_CLASS = new ClassValue<List<ScheduledMethod>>() {
+        @Override
+        protected List<ScheduledMethod> computeValue(Class<?> type) {
+            return scan(type);
+        }
+    };
+
+    @NotNull
+    final Method method;
+
+    /**
+     * See {@link SchedulerTask#toInvoker(Method)}.
+     */
+    @Nullable
+    final MethodHandle invoker;
+
+    @NotNull
+    final String cron;
+
+    @NotNull
+    final String executor;
+
+    private ScheduledMethod(@NotNull Method method, @NotNull String cron, @NotNull String executor) {
+        this.method = method;
+        this.invoker = SchedulerTask.toInvoker(method);
+        this.cron = cron;
+        this.executor = executor;
+    }
+
+    /**
+     * @return all scheduled methods of the class and its superclasses.
+     * @throws IllegalArgumentException if any scheduled method is invalid
+     */
+    @NotNull
+    static List<ScheduledMethod> forClass(@NotNull Class<?> cls) {
+        return METHODS_BY_CLASS.get(cls);
+    }
+
+    @NotNull
+    private static List<ScheduledMethod> scan(@NotNull Class<?> type) {
+        List<ScheduledMethod> result = new ArrayList<>();
+        for (Class<?> cls = type; cls != Object.class; cls = cls.getSuperclass()) {
+            // processing all methods, not only public ones in order to detect potential errors
+            // earlier during initialization phase.
+            try {
+                for (Method m : cls.getDeclaredMethods()) {
+                    Scheduled annotation = m.getAnnotation(Scheduled.class);
+                    if (annotation != null) {
+                        int mod = m.getModifiers();
+                        if (!Modifier.isPublic(mod)) {
+                            throw new IllegalArgumentException("Method is private: " + m);
+                        }
+                        if (m.getGenericParameterTypes().length != 0) {
+                            throw new IllegalArgumentException("Method has non zero parameters: " + m);
+                        }
+                        // validates the expression
+                        CronSequenceGeneratorCache.SHARED.get(annotation.cron(), TimeZone.getDefault());
+                        result.add(new ScheduledMethod(m, annotation.cron(), annotation.executor()));
+                    }
+                }
+            } catch (SecurityException ignored) {
+                break;
+            }
+        }
+        return result.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(result);
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.cs4j;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Creates tasks for all {@link Scheduled} methods of an instance without reflection.
+ * Implementations are generated by {@link com.github.cs4j.processor.ScheduledProcessor} as
+ * {@code <class binary name>$$ScheduledRegistrar} and are used by {@link Scheduler#schedule(Object)} when present.
+ */
+public interface ScheduledRegistrar<T> {
+
+    /**
+     * Suffix of the generated registrar class name.
+     */
+    String CLASS_NAME_SUFFIX = "$$ScheduledRegistrar";
+
+    @NotNull
+    List<SchedulerTask> createTasks(@NotNull Scheduler scheduler, @NotNull T instance);
+
+    /**
+     * Finds the scheduled method for generated registrars: they resolve every method once per class, so tasks
+     * are reported with the same {@link SchedulerTask#method} as tasks of scanned classes.
+     *
+     * @param declaringClassName binary name of the class or superclass that declares the method.
+     * @throws IllegalStateException if there is no such method
+     */
+    @NotNull
+    static Method findMethod(@NotNull Class<?> type, @NotNull String declaringClassName, @NotNull String name) {
+        for (Class<?> cls = type; cls != null; cls = cls.getSuperclass()) {
+            if (cls.getName().equals(declaringClassName)) {
+                try {
+                    return cls.getDeclaredMethod(name);
+                } catch (NoSuchMethodException e) {
+                    break;
+                }
+            }
+        }
+        throw new IllegalStateException("Scheduled method is not found: " + declaringClassName + "." + name + "()");
+    }
+}
@@ -1,13 +1,20 @@
 package com.github.cs4j;
 
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -24,15 +31,29 @@ public class Scheduler implements AutoCloseable {
     };
 
     /**
-     * Object used for internal locking/notifications.
+     * Registrars generated by {@link com.github.cs4j.processor.ScheduledProcessor} or null if the class has no registrar.
      */
-    private final Object monitor = new Object();
+    private static final ClassValue<ScheduledRegistrar<?>> REGISTRARS = new ClassValue<ScheduledRegistrar<?>>() {
+        @Override
+        protected ScheduledRegistrar<?> computeValue(Class<?> type) {
+            return findRegistrar(type);
+        }
+    };
 
     /**
-     * List of managed tasks.
+     * Managed tasks by registration order.
      */
     @NotNull
-    private final List<SchedulerTask> tasks = new ArrayList<>();
+    private final ConcurrentSkipListMap<Long, SchedulerTask> tasks = new ConcurrentSkipListMap<>();
+
+    @NotNull
+    private final AtomicLong taskSequence = new AtomicLong();
+
+    /**
+     * Managed tasks by instance. Lists are modified inside map's compute methods only.
+     */
+    @NotNull
+    private final ConcurrentHashMap<InstanceKey, List<SchedulerTask>> tasksByInstance = new ConcurrentHashMap<>();
 
     /**
      * Task executor instance.
@@ -40,84 +61,350 @@ public class Scheduler implements AutoCloseable {
     @NotNull
     public final ExecutorService tasksExecutor;
 
+    /**
+     * Executor groups by name. {@link #tasksExecutor} is the default group.
+     */
+    @NotNull
+    private final ConcurrentHashMap<String, ExecutorGroup> executorGroups = new ConcurrentHashMap<>();
+
     @NotNull
     EventLogger eventLogger = NULL_LOGGER;
 
     /**
-     * Thread that makes all scheduling job.
+     * The first dispatcher thread. The only one unless the scheduler is sharded.
      */
     @NotNull
     public final SchedulerThread schedulerThread;
 
+    /**
+     * Dispatcher threads. Every thread owns a part of tasks selected by task hash. All shards share the executor.
+     */
+    @NotNull
+    private final SchedulerThread[] shards;
+
+    /**
+     * Scheduler thread wake up policy.
+     */
+    @NotNull
+    public final Mode mode;
+
+    /**
+     * Time source of the scheduler.
+     */
+    @NotNull
+    public final SchedulerClock clock;
+
     /**
      * If scheduler is active or not.
      */
-    private boolean active;
+    private volatile boolean active;
 
     public Scheduler(@NotNull ExecutorService tasksExecutor, int initialDelay, int checkInterval, @NotNull TimeUnit timeUnit, @NotNull String schedulerThreadName) {
-        schedulerThread = new SchedulerThread(initialDelay, checkInterval, timeUnit, schedulerThreadName);
+        this(tasksExecutor, initialDelay, checkInterval, timeUnit, schedulerThreadName, Mode.POLLING);
+    }
+
+    /**
+     * Creates new scheduler and starts scheduler thread.
+     *
+     * @param checkInterval interval between checks in {@link Mode#POLLING} mode or the maximum time scheduler thread
+     *                      sleeps in other modes.
+     * @param mode          scheduler thread wake up policy.
+     */
+    public Scheduler(@NotNull ExecutorService tasksExecutor, int initialDelay, int checkInterval, @NotNull TimeUnit timeUnit, @NotNull String schedulerThreadName, @NotNull Mode mode) {
+        this(tasksExecutor, initialDelay, checkInterval, timeUnit, schedulerThreadName, mode, 1);
+    }
+
+    /**
+     * Creates new scheduler and starts the given number of dispatcher threads. Tasks are partitioned between
+     * the threads by hash: use more than one shard when too many tasks are due at the same time for a single thread.
+     * Threads are named schedulerThreadName, schedulerThreadName-1, ...
+     *
+     * @param shardCount number of dispatcher threads.
+     */
+    public Scheduler(@NotNull ExecutorService tasksExecutor, int initialDelay, int checkInterval, @NotNull TimeUnit timeUnit, @NotNull String schedulerThreadName, @NotNull Mode mode, int shardCount) {
+        this(tasksExecutor, initialDelay, checkInterval, timeUnit, schedulerThreadName, mode, shardCount, SchedulerClock.SYSTEM);
+    }
+
+    /**
+     * Creates new scheduler that reads the time and waits with the given clock. Initial delay and check interval
+     * are measured with the clock too. Use {@link VirtualClock} to run the scheduler in simulated time.
+     */
+    public Scheduler(@NotNull ExecutorService tasksExecutor, int initialDelay, int checkInterval, @NotNull TimeUnit timeUnit, @NotNull String schedulerThreadName, @NotNull Mode mode, int shardCount, @NotNull SchedulerClock clock) {
+        //noinspection ConstantConditions
+        if (mode == null) {
+            throw new IllegalArgumentException("mode is null");
+        }
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shardCount must be > 0. Value: " + shardCount);
+        }
+        //noinspection ConstantConditions
+        if (clock == null) {
+            throw new IllegalArgumentException("clock is null");
+        }
         this.tasksExecutor = tasksExecutor;
+        this.mode = mode;
+        this.clock = clock;
+        executorGroups.put(ExecutorGroup.DEFAULT, new ExecutorGroup(ExecutorGroup.DEFAULT, tasksExecutor));
+        shards = new SchedulerThread[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new SchedulerThread(i, initialDelay, checkInterval, timeUnit, i == 0 ? schedulerThreadName : schedulerThreadName + "-" + i);
+        }
+        schedulerThread = shards[0];
         active = true;
-        schedulerThread.start();
+        for (SchedulerThread shard : shards) {
+            clock.register(shard);
+            shard.start();
+        }
     }
 
 
-    public void schedule(@NotNull Object obj) {
-        for (Class<?> cls = obj.getClass(); cls != Object.class; cls = cls.getSuperclass()) {
-            // processing all methods, not only public ones in order to detect potential errors
-            // earlier during initialization phase.
-            try {
-                for (Method m : cls.getDeclaredMethods()) {
-                    Scheduled annotation = m.getAnnotation(Scheduled.class);
-                    if (annotation != null) {
-                        int mod = m.getModifiers();
-                        if (!Modifier.isPublic(mod)) {
-                            throw new IllegalArgumentException("Method is private: " + m);
-                        }
-                        if (m.getGenericParameterTypes().length != 0) {
-                            throw new IllegalArgumentException("Method has non zero parameters: " + m);
-                        }
-                        synchronized (monitor) {
-                            tasks.add(new SchedulerTask(this, obj, m, new CronSequenceGenerator(annotation.cron())));
-                        }
+    /**
+     * Schedules all methods of the object annotated with {@link Scheduled}.
+     *
+     * @return created tasks. Use {@link SchedulerTask#cancel()} or {@link #unschedule(Object)} to remove them.
+     */
+    @NotNull
+    public List<SchedulerTask> schedule(@NotNull Object obj) {
+        @SuppressWarnings("unchecked")
+        ScheduledRegistrar<Object> registrar = (ScheduledRegistrar<Object>) REGISTRARS.get(obj.getClass());
+        if (registrar != null) {
+            List<SchedulerTask> newTasks = registrar.createTasks(this, obj);
+            scheduleAll(newTasks);
+            return Collections.unmodifiableList(newTasks);
+        }
+        List<ScheduledMethod> methods = ScheduledMethod.forClass(obj.getClass());
+        if (methods.isEmpty()) {
+            return Collections.emptyList();
+        }
+        TimeZone timeZone = TimeZone.getDefault();
+        List<SchedulerTask> newTasks = new ArrayList<>(methods.size());
+        for (ScheduledMethod m : methods) {
+            CronSequenceGenerator sequenceGenerator = CronSequenceGeneratorCache.SHARED.get(m.cron, timeZone);
+            newTasks.add(new SchedulerTask(this, obj, m.method, m.invoker, sequenceGenerator, m.executor));
+        }
+        scheduleAll(newTasks);
+        return Collections.unmodifiableList(newTasks);
+    }
+
+    /**
+     * Schedules the runnable with the cron expression in the default time zone.
+     *
+     * @return the new task
+     * @throws IllegalArgumentException if the expression cannot be parsed
+     */
+    @NotNull
+    public SchedulerTask schedule(@NotNull Runnable runnable, @NotNull String cron) {
+        return schedule(runnable, CronSequenceGeneratorCache.SHARED.get(cron, TimeZone.getDefault()));
+    }
+
+    /**
+     * Schedules the runnable with the given sequence generator.
+     *
+     * @return the new task
+     */
+    @NotNull
+    public SchedulerTask schedule(@NotNull Runnable runnable, @NotNull CronSequenceGenerator sequenceGenerator) {
+        return schedule(new SchedulerTask(this, runnable, Executors.callable(runnable), sequenceGenerator));
+    }
+
+    /**
+     * Schedules the callable with the cron expression in the default time zone. If the callable returns
+     * a {@link java.util.concurrent.CompletionStage} the task is executing until the stage completes and exceptional
+     * completion is reported to {@link EventLogger#onError}. Other results are ignored.
+     *
+     * @return the new task
+     * @throws IllegalArgumentException if the expression cannot be parsed
+     */
+    @NotNull
+    public SchedulerTask schedule(@NotNull Callable<?> callable, @NotNull String cron) {
+        return schedule(callable, CronSequenceGeneratorCache.SHARED.get(cron, TimeZone.getDefault()));
+    }
+
+    /**
+     * Schedules the callable with the given sequence generator. The result is handled as described in
+     * {@link #schedule(Callable, String)}.
+     *
+     * @return the new task
+     */
+    @NotNull
+    public SchedulerTask schedule(@NotNull Callable<?> callable, @NotNull CronSequenceGenerator sequenceGenerator) {
+        return schedule(new SchedulerTask(this, callable, callable, sequenceGenerator));
+    }
+
+    @NotNull
+    private SchedulerTask schedule(@NotNull SchedulerTask task) {
+        scheduleAll(Collections.singletonList(task));
+        return task;
+    }
+
+    /**
+     * Registers a named executor for tasks with {@link Scheduled#executor()} equal to the name.
+     * The executor is shut down with the scheduler.
+     *
+     * @throws IllegalArgumentException if the name is empty or already registered
+     */
+    @NotNull
+    public ExecutorGroup registerExecutor(@NotNull String name, @NotNull ExecutorService executor) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("Executor name is empty");
+        }
+        ExecutorGroup group = new ExecutorGroup(name, executor);
+        if (executorGroups.putIfAbsent(name, group) != null) {
+            throw new IllegalArgumentException("Executor is already registered: " + name);
+        }
+        return group;
+    }
+
+    /**
+     * @return all executor groups including the default one.
+     */
+    @NotNull
+    public List<ExecutorGroup> getExecutorGroups() {
+        return new ArrayList<>(executorGroups.values());
+    }
+
+    /**
+     * Schedules all tasks at once. Registration does not block the scheduler thread: tasks are passed to it
+     * with a lock-free queue.
+     *
+     * @throws IllegalArgumentException if any task belongs to another scheduler, is already scheduled or
+     *                                  uses an executor that is not registered. No tasks are scheduled in this case.
+     */
+    public void scheduleAll(@NotNull Collection<SchedulerTask> newTasks) {
+        for (SchedulerTask task : newTasks) {
+            if (task.scheduler != this) {
+                throw new IllegalArgumentException("Task belongs to another scheduler: " + task);
+            }
+            if (!executorGroups.containsKey(task.executorName)) {
+                throw new IllegalArgumentException("Executor is not registered: " + task.executorName);
+            }
+        }
+        int n = 0;
+        for (SchedulerTask task : newTasks) {
+            if (!task.compareAndSetState(SchedulerTask.NEW, SchedulerTask.SCHEDULED)) {
+                // roll back the tasks that are not visible yet.
+                for (SchedulerTask t : newTasks) {
+                    if (--n < 0) {
+                        break;
                     }
+                    t.compareAndSetState(SchedulerTask.SCHEDULED, SchedulerTask.NEW);
                 }
-            } catch (SecurityException ignored) {
-                break;
+                throw new IllegalArgumentException("Task is already scheduled: " + task);
             }
+            n++;
+        }
+        for (SchedulerTask task : newTasks) {
+            task.sequenceNumber = taskSequence.incrementAndGet();
+            task.executorGroup = executorGroups.get(task.executorName);
+            // publishes the fields above to cancel().
+            task.shard = shards[shardIndex(task.sequenceNumber, shards.length)];
+            tasks.put(task.sequenceNumber, task);
+            tasksByInstance.compute(new InstanceKey(task.instance), (k, list) -> {
+                List<SchedulerTask> result = list == null ? new ArrayList<>(1) : list;
+                result.add(task);
+                return result;
+            });
+            if (task.isCancelled()) {
+                // cancelled by another thread before it was registered.
+                unregister(task);
+                continue;
+            }
+            task.shard.add(task);
         }
     }
 
-    private void checkAndExecute() {
-        eventLogger.onCheckInterval();
-        synchronized (monitor) {
-            long currentMillis = System.currentTimeMillis();
-            for (SchedulerTask t : tasks) {
-                if (t.nextExecutingTime >= currentMillis) {
-                    continue;
-                }
-                if (t.executing) {
-                    t.nextExecutingTime = t.sequenceGenerator.next(currentMillis);
-                    continue;
-                }
-                try {
-                    t.lastExecutingTime = System.currentTimeMillis();
-                    eventLogger.onBeforeExecute(t);
-                    tasksExecutor.execute(t);
-                    t.executing = true;
-                } catch (RejectedExecutionException e) {
-                    eventLogger.onError("Failed to start task: " + t, e);
-                }
+    /**
+     * Spreads sequential task numbers evenly between shards.
+     */
+    static int shardIndex(long sequenceNumber, int shardCount) {
+        return shardCount == 1 ? 0 : (int) ((Long.hashCode(sequenceNumber * 0x9E3779B97F4A7C15L) & 0x7FFFFFFFL) % shardCount);
+    }
+
+    /**
+     * Cancels all tasks of the instance. Running executions are not interrupted.
+     *
+     * @return number of cancelled tasks.
+     */
+    public int unschedule(@NotNull Object obj) {
+        List<SchedulerTask> instanceTasks = tasksByInstance.remove(new InstanceKey(obj));
+        if (instanceTasks == null) {
+            return 0;
+        }
+        int n = 0;
+        for (SchedulerTask task : instanceTasks) {
+            if (task.compareAndSetState(SchedulerTask.SCHEDULED, SchedulerTask.CANCELLED)) {
+                tasks.remove(task.sequenceNumber);
+                task.shard.remove(task);
+                n++;
             }
         }
+        return n;
+    }
+
+    /**
+     * See {@link SchedulerTask#cancel()}.
+     */
+    boolean cancel(@NotNull SchedulerTask task) {
+        if (!task.compareAndSetState(SchedulerTask.SCHEDULED, SchedulerTask.CANCELLED)) {
+            return false;
+        }
+        SchedulerThread shard = task.shard;
+        // a task without a shard is not registered yet: scheduleAll() checks the state after registration and removes it.
+        if (shard != null) {
+            unregister(task);
+            shard.remove(task);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the cancelled task from tasks and tasksByInstance.
+     */
+    private void unregister(@NotNull SchedulerTask task) {
+        tasks.remove(task.sequenceNumber);
+        tasksByInstance.computeIfPresent(new InstanceKey(task.instance), (k, list) -> {
+            list.remove(task);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    @Nullable
+    private static ScheduledRegistrar<?> findRegistrar(@NotNull Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+        if (loader == null) {
+            return null;
+        }
+        try {
+            Class<?> registrarClass = Class.forName(type.getName() + ScheduledRegistrar.CLASS_NAME_SUFFIX, true, loader);
+            if (!ScheduledRegistrar.class.isAssignableFrom(registrarClass)) {
+                return null;
+            }
+            return (ScheduledRegistrar<?>) registrarClass.getConstructor().newInstance();
+        } catch (LinkageError | ReflectiveOperationException | SecurityException e) {
+            // no generated registrar: methods are scanned with reflection.
+            return null;
+        }
+    }
+
+    /**
+     * Called by task when its execution is finished and the next executing time is computed.
+     */
+    void onTaskFinished(@NotNull SchedulerTask task) {
+        SchedulerThread shard = task.shard;
+        // the shard is null if the task was never scheduled.
+        if (shard != null && !task.isCancelled()) {
+            shard.add(task);
+        }
     }
 
     public void shutdown() {
         active = false;
-        synchronized (monitor) {
-            monitor.notify();
+        for (SchedulerThread shard : shards) {
+            shard.wakeUp();
+        }
+        for (ExecutorGroup group : executorGroups.values()) {
+            group.executor.shutdown();
         }
-        tasksExecutor.shutdown();
     }
 
     public boolean isShutdown() {
@@ -128,10 +415,20 @@ public class Scheduler implements AutoCloseable {
         this.eventLogger = eventLogger == null ? NULL_LOGGER : eventLogger;
     }
 
-    @SuppressWarnings("unused")
+    /**
+     * @return snapshot of all scheduled tasks that are not cancelled.
+     */
     @NotNull
     public List<SchedulerTask> getTasks() {
-        return Collections.unmodifiableList(tasks);
+        return new ArrayList<>(tasks.values());
+    }
+
+    /**
+     * @return dispatcher threads. The first one is {@link #schedulerThread}.
+     */
+    @NotNull
+    public List<SchedulerThread> getShards() {
+        return Collections.unmodifiableList(Arrays.asList(shards));
     }
 
     @Override
@@ -139,12 +436,53 @@ public class Scheduler implements AutoCloseable {
         shutdown();
     }
 
+    /**
+     * Dispatcher thread: keeps its part of tasks in a queue and submits due tasks to the executor.
+     */
     public class SchedulerThread extends Thread {
+        public final int shardIndex;
         public final int initialDelay;
         public final int checkInterval;
         public final TimeUnit timeUnit;
 
-        private SchedulerThread(int initialDelay, int checkInterval, TimeUnit timeUnit, @NotNull String threadName) {
+        /**
+         * Tasks waiting for execution ordered by next executing time. Running tasks are not in the queue:
+         * they are added back when finished. Used by this thread only: other threads pass changes
+         * with {@link #addedTasks} and {@link #removedTasks}.
+         */
+        @NotNull
+        private final TaskQueue queue;
+
+        /**
+         * New and finished tasks to be added to the queue.
+         */
+        @NotNull
+        private final ConcurrentLinkedQueue<SchedulerTask> addedTasks = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Cancelled tasks to be removed from the queue.
+         */
+        @NotNull
+        private final ConcurrentLinkedQueue<SchedulerTask> removedTasks = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Time the thread is going to wake up at. Not used in {@link Mode#POLLING} mode.
+         * Stays 0 until the initial delay is over.
+         */
+        private volatile long wakeUpTime;
+
+        /**
+         * Set when the thread is asked to wake up. Cleared by the thread before every check.
+         */
+        private volatile boolean wakeUpRequested;
+
+        // metrics: written by this thread only.
+        private volatile long lastLagMillis;
+        private volatile long maxLagMillis;
+        private volatile long dispatchedCount;
+        private volatile int queueSize;
+
+        private SchedulerThread(int shardIndex, int initialDelay, int checkInterval, TimeUnit timeUnit, @NotNull String threadName) {
             if (initialDelay < 0) {
                 throw new IllegalArgumentException("initialDelay < 0. Value: " + initialDelay);
             }
@@ -154,13 +492,166 @@ public class Scheduler implements AutoCloseable {
             if (timeUnit == null) {
                 throw new IllegalArgumentException("timeUnit is null");
             }
+            this.shardIndex = shardIndex;
             this.initialDelay = initialDelay;
             this.checkInterval = checkInterval;
             this.timeUnit = timeUnit;
+            queue = mode == Mode.TIMING_WHEEL ? new TimingWheelTaskQueue(clock.currentTimeMillis()) : new HeapTaskQueue();
             setName(threadName);
             setDaemon(true);
         }
 
+        /**
+         * @return delay between the executing time and the start of the last dispatched task.
+         */
+        public long getLastLagMillis() {
+            return lastLagMillis;
+        }
+
+        /**
+         * @return maximum delay between the executing time and the start of a task.
+         */
+        public long getMaxLagMillis() {
+            return maxLagMillis;
+        }
+
+        /**
+         * @return number of tasks submitted to the executor by this thread.
+         */
+        public long getDispatchedCount() {
+            return dispatchedCount;
+        }
+
+        /**
+         * @return number of tasks waiting in the queue after the last check.
+         */
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        void add(@NotNull SchedulerTask task) {
+            addedTasks.add(task);
+            wakeUpIfEarlier(task.nextExecutingTime);
+        }
+
+        void remove(@NotNull SchedulerTask task) {
+            removedTasks.add(task);
+        }
+
+        /**
+         * Executes all tasks that are due. Must be called by this thread only: package-private for benchmarks
+         * that keep the thread in the initial delay.
+         *
+         * @return the earliest executing time of the tasks that are not running now or Long.MAX_VALUE if there are no such tasks.
+         */
+        long checkAndExecute() {
+            eventLogger.onCheckInterval();
+            for (SchedulerTask t; (t = removedTasks.poll()) != null; ) {
+                if (t.queued) {
+                    t.queued = false;
+                    queue.remove(t);
+                }
+            }
+            for (SchedulerTask t; (t = addedTasks.poll()) != null; ) {
+                if (!t.queued && !t.isCancelled()) {
+                    t.queued = true;
+                    queue.add(t);
+                }
+            }
+            long currentMillis = clock.currentTimeMillis();
+            List<SchedulerTask> failedTasks = null;
+            long nextTime;
+            try {
+                for (SchedulerTask t; (t = queue.pollDue(currentMillis)) != null; ) {
+                    t.queued = false;
+                    if (t.isCancelled()) {
+                        continue;
+                    }
+                    ExecutorGroup group = t.executorGroup;
+                    long startTime;
+                    long executingTime;
+                    boolean saturated;
+                    try {
+                        startTime = clock.currentTimeMillis();
+                        // the task may be finished by the executor before it returns: read the time first.
+                        executingTime = t.nextExecutingTime;
+                        t.lastExecutingTime = startTime;
+                        eventLogger.onBeforeExecute(t);
+                        t.executing = true;
+                        saturated = group.onSubmitting();
+                        try {
+                            group.executor.execute(t);
+                        } catch (RuntimeException e) {
+                            if (e instanceof RejectedExecutionException) {
+                                group.onRejected();
+                                t.getMetrics().onRejected();
+                                eventLogger.onExecutorSaturated(group, t);
+                            } else {
+                                group.onReleased();
+                            }
+                            throw e;
+                        }
+                    } catch (RuntimeException e) {
+                        // rejected by the executor or failed in the event logger: the task must stay in the queue.
+                        t.executing = false;
+                        if (failedTasks == null) {
+                            failedTasks = new ArrayList<>();
+                        }
+                        failedTasks.add(t);
+                        eventLogger.onError("Failed to start task: " + t, e);
+                        continue;
+                    }
+                    // the task is running from now on: it must not be queued again if the event logger fails.
+                    group.onSubmitted(saturated);
+                    if (executingTime != 0) {
+                        // the first run of a new task is not delayed: it has no executing time.
+                        long lag = startTime - executingTime;
+                        t.getMetrics().onStarted(lag);
+                        lastLagMillis = lag;
+                        if (lag > maxLagMillis) {
+                            maxLagMillis = lag;
+                        }
+                    }
+                    dispatchedCount++;
+                    if (saturated) {
+                        try {
+                            eventLogger.onExecutorSaturated(group, t);
+                        } catch (RuntimeException e) {
+                            eventLogger.onError("Failed to report saturated executor: " + group, e);
+                        }
+                    }
+                }
+                nextTime = queue.nextTime();
+            } finally {
+                if (failedTasks != null) {
+                    // failed tasks are retried on the next check, even if the event logger fails too.
+                    for (SchedulerTask t : failedTasks) {
+                        t.queued = true;
+                        queue.add(t);
+                    }
+                }
+            }
+            queueSize = queue.size();
+            return nextTime;
+        }
+
+        /**
+         * Wakes up the thread if it is going to sleep after the given time.
+         */
+        private void wakeUpIfEarlier(long time) {
+            if (mode != Mode.POLLING && time < wakeUpTime) {
+                wakeUp();
+            }
+        }
+
+        /**
+         * Wakes up the thread. If the thread is not waiting now the next wait is skipped.
+         */
+        private void wakeUp() {
+            wakeUpRequested = true;
+            clock.unpark(this);
+        }
+
         @Override
         public void run() {
             if (initialDelay > 0) {
@@ -169,8 +660,19 @@ public class Scheduler implements AutoCloseable {
             long checkIntervalMillis = timeUnit.toMillis(checkInterval);
             while (active) {
                 try {
-                    checkAndExecute();
-                    pause(checkIntervalMillis);
+                    // all tasks added or finished during the check must wake up the thread: they may be missed by the check.
+                    wakeUpTime = Long.MAX_VALUE;
+                    wakeUpRequested = false;
+                    long nextTime = checkAndExecute();
+                    if (mode == Mode.POLLING) {
+                        pause(checkIntervalMillis);
+                        continue;
+                    }
+                    // tasks are started when current time is greater than task's time: wake up 1ms after the deadline.
+                    long currentMillis = clock.currentTimeMillis();
+                    long pauseMillis = nextTime == Long.MAX_VALUE ? checkIntervalMillis : Math.max(1, Math.min(checkIntervalMillis, nextTime + 1 - currentMillis));
+                    wakeUpTime = currentMillis + pauseMillis;
+                    pause(pauseMillis);
                 } catch (Exception e) {
                     System.err.println("Got internal error that must never happen!");
                     e.printStackTrace();
@@ -178,15 +680,65 @@ public class Scheduler implements AutoCloseable {
             }
         }
 
-        private void pause(long checkIntervalMillis) {
-            try {
-                synchronized (monitor) {
-                    monitor.wait(checkIntervalMillis);
+        /**
+         * Parks the thread for the given time or until {@link #wakeUp()} is called. Interrupts are ignored unless
+         * the scheduler is shut down: the interrupt flag is cleared, otherwise every park would return immediately.
+         */
+        private void pause(long pauseMillis) {
+            long deadline = clock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pauseMillis);
+            while (!wakeUpRequested && deadline - clock.nanoTime() > 0) {
+                clock.parkUntil(this, deadline);
+                if (Thread.interrupted()) {
+                    if (!active) {
+                        return;
+                    }
+                    System.err.println("Got unexpected interrupt! Ignoring");
                 }
-            } catch (InterruptedException e) {
-                System.err.println("Got unexpected interrupted exception! Ignoring");
-                e.printStackTrace();
             }
         }
     }
+
+    /**
+     * Map key that compares instances by identity.
+     */
+    private static final class InstanceKey {
+        @NotNull
+        private final Object instance;
+
+        InstanceKey(@NotNull Object instance) {
+            this.instance = instance;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof InstanceKey && ((InstanceKey) o).instance == instance;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(instance);
+        }
+    }
+
+    /**
+     * Scheduler thread wake up policy.
+     */
+    public enum Mode {
+        /**
+         * Scheduler thread wakes up every check interval and checks all tasks.
+         */
+        POLLING,
+
+        /**
+         * Scheduler thread sleeps until the earliest task executing time and is woken up early when a task
+         * with an earlier executing time is added. Check interval limits a single sleep and protects from system clock changes.
+         */
+        DEADLINE,
+
+        /**
+         * Same as {@link #DEADLINE} but tasks are kept in a hierarchical timing wheel instead of a binary heap.
+         * Adding and starting a task costs O(1). Recommended for very large number of tasks.
+         */
+        TIMING_WHEEL
+    }
 }
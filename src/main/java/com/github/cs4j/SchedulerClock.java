@@ -0,0 +1,69 @@
+package com.github.cs4j;
+
+import java.util.concurrent.locks.LockSupport;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Time source of {@link Scheduler}: dispatcher threads read the time and wait with the clock and tasks compute
+ * their next executing time with it. Use {@link VirtualClock} to run a scheduler in simulated time.
+ */
+public interface SchedulerClock {
+
+    /**
+     * System time. Waits are measured with {@link System#nanoTime()} and are not affected by system clock changes.
+     */
+    SchedulerClock SYSTEM = new SchedulerClock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void parkUntil(@NotNull Object blocker, long deadlineNanos) {
+            LockSupport.parkNanos(blocker, deadlineNanos - System.nanoTime());
+        }
+
+        @Override
+        public void unpark(@NotNull Thread thread) {
+            LockSupport.unpark(thread);
+        }
+
+        @Override
+        public String toString() {
+            return "SchedulerClock.SYSTEM";
+        }
+    };
+
+    /**
+     * @return current time in milliseconds since the epoch.
+     */
+    long currentTimeMillis();
+
+    /**
+     * @return monotonic time in nanoseconds used to measure waits. Only differences between values are meaningful.
+     */
+    long nanoTime();
+
+    /**
+     * Parks the current thread until {@link #nanoTime()} reaches the deadline. Like {@link LockSupport#parkNanos(Object, long)}
+     * the method may return early: callers must check their condition in a loop.
+     */
+    void parkUntil(@NotNull Object blocker, long deadlineNanos);
+
+    /**
+     * Wakes up the thread parked with {@link #parkUntil(Object, long)}. If the thread is not parked its next park
+     * returns immediately.
+     */
+    void unpark(@NotNull Thread thread);
+
+    /**
+     * Called for every dispatcher thread before it is started.
+     */
+    default void register(@NotNull Thread thread) {
+    }
+}
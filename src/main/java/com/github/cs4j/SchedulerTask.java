@@ -1,7 +1,17 @@
 package com.github.cs4j;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class SchedulerTask implements Runnable {
 
@@ -11,35 +21,243 @@ public class SchedulerTask implements Runnable {
     @NotNull
     public final Object instance;
 
-    @NotNull
+    /**
+     * Scheduled method. Null for tasks created from a {@link Runnable} or {@link Callable}
+     * with {@link Scheduler#schedule(Callable, String)} and similar methods.
+     */
+    @Nullable
     public final Method method;
 
+    /**
+     * Task body used instead of invoking the method, e.g. by generated {@link ScheduledRegistrar} classes.
+     */
+    @Nullable
+    private final Callable<?> callable;
+
     @NotNull
     public final CronSequenceGenerator sequenceGenerator;
 
+    /**
+     * Name of the executor group the task runs in. See {@link Scheduled#executor()}.
+     */
+    @NotNull
+    public final String executorName;
+
+    /**
+     * Executor group resolved when the task is scheduled.
+     */
+    ExecutorGroup executorGroup;
+
+    /**
+     * Method handle of (Object)Object type or null if the method is not accessible with method handles:
+     * {@link Method#invoke} is used in this case.
+     */
+    @Nullable
+    private final MethodHandle invoker;
+
+    /**
+     * Maximum number of skipped executing times counted when an execution finishes.
+     */
+    static final int MAX_COUNTED_SKIPS = 64;
+
+    @NotNull
+    private final TaskMetrics metrics = new TaskMetrics();
+
     volatile long lastExecutingTime = 0;
     volatile long nextExecutingTime = 0;
     volatile boolean executing;
 
+    static final int NEW = 0;
+    static final int SCHEDULED = 1;
+    static final int CANCELLED = 2;
+
+    private static final AtomicIntegerFieldUpdater<SchedulerTask> STATE = AtomicIntegerFieldUpdater.newUpdater(SchedulerTask.class, "state");
+
+    /**
+     * {@link #NEW}, {@link #SCHEDULED} or {@link #CANCELLED}.
+     */
+    private volatile int state;
+
+    /**
+     * Registration order in the scheduler.
+     */
+    long sequenceNumber;
+
+    /**
+     * Dispatcher thread the task is assigned to. Set when the task is registered, after the other registration fields.
+     */
+    volatile Scheduler.SchedulerThread shard;
+
+    /**
+     * True if the task is waiting in the scheduler queue. Accessed by the scheduler thread only.
+     */
+    boolean queued;
+
+    /**
+     * Next and previous tasks in the same {@link TimingWheelTaskQueue} slot.
+     */
+    SchedulerTask queueNext;
+    SchedulerTask queuePrev;
+
+    /**
+     * {@link TimingWheelTaskQueue} slot or -1 if the task is not in a slot.
+     */
+    int queueSlot = -1;
+
+    /**
+     * Position in {@link HeapTaskQueue} or -1 if the task is not in a heap.
+     */
+    int heapIndex = -1;
+
     public SchedulerTask(@NotNull Scheduler scheduler, @NotNull Object instance, @NotNull Method method, @NotNull CronSequenceGenerator sequenceGenerator) {
         this.scheduler = scheduler;
         this.instance = instance;
         this.method = method;
         this.sequenceGenerator = sequenceGenerator;
+        this.executorName = ExecutorGroup.DEFAULT;
+        this.invoker = toInvoker(method);
+        this.callable = null;
+    }
+
+    public SchedulerTask(@NotNull Scheduler scheduler, @NotNull Object instance, @NotNull Callable<?> callable, @NotNull CronSequenceGenerator sequenceGenerator) {
+        this(scheduler, instance, callable, sequenceGenerator, ExecutorGroup.DEFAULT);
+    }
+
+    /**
+     * @param executorName name of the executor registered with {@link Scheduler#registerExecutor}.
+     */
+    public SchedulerTask(@NotNull Scheduler scheduler, @NotNull Object instance, @NotNull Callable<?> callable, @NotNull CronSequenceGenerator sequenceGenerator, @NotNull String executorName) {
+        this.scheduler = scheduler;
+        this.instance = instance;
+        this.method = null;
+        this.sequenceGenerator = sequenceGenerator;
+        this.executorName = executorName;
+        this.invoker = null;
+        this.callable = callable;
+    }
+
+    /**
+     * Creates a task that runs the callable instead of invoking the method. The method is used to describe the task.
+     * Used by generated {@link ScheduledRegistrar} classes.
+     */
+    public SchedulerTask(@NotNull Scheduler scheduler, @NotNull Object instance, @NotNull Method method, @NotNull Callable<?> callable, @NotNull CronSequenceGenerator sequenceGenerator, @NotNull String executorName) {
+        this.scheduler = scheduler;
+        this.instance = instance;
+        this.method = method;
+        this.sequenceGenerator = sequenceGenerator;
+        this.executorName = executorName;
+        this.invoker = null;
+        this.callable = callable;
+    }
+
+    SchedulerTask(@NotNull Scheduler scheduler, @NotNull Object instance, @NotNull Method method, @Nullable MethodHandle invoker, @NotNull CronSequenceGenerator sequenceGenerator, @NotNull String executorName) {
+        this.scheduler = scheduler;
+        this.instance = instance;
+        this.method = method;
+        this.sequenceGenerator = sequenceGenerator;
+        this.executorName = executorName;
+        this.invoker = invoker;
+        this.callable = null;
+    }
+
+    /**
+     * @return method handle of (Object)Object type or null if the method is not accessible with method handles.
+     */
+    @Nullable
+    static MethodHandle toInvoker(@NotNull Method method) {
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            return handle.asType(MethodType.methodType(Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            return null;
+        }
     }
 
 
+    /**
+     * Runs the task. If the task returns {@link CompletionStage} the task is executing until the stage is completed,
+     * but the calling thread is released immediately.
+     */
     public void run() {
+        long startNanos = scheduler.clock.nanoTime();
+        boolean async = false;
+        boolean failed = false;
         try {
-            method.invoke(instance);
+            Object result = invoke();
+            if (result instanceof CompletionStage) {
+                ((CompletionStage<?>) result).whenComplete((r, e) -> {
+                    try {
+                        if (e != null) {
+                            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                            scheduler.eventLogger.onError("Exception in task: " + this, new InvocationTargetException(cause));
+                        }
+                    } finally {
+                        finish(startNanos, e != null);
+                    }
+                });
+                async = true;
+            }
         } catch (Exception e) {
+            failed = true;
             scheduler.eventLogger.onError("Exception in task: " + this, e);
         } finally {
-            nextExecutingTime = sequenceGenerator.next(System.currentTimeMillis());
-            executing = false;
+            ExecutorGroup group = executorGroup;
+            if (group != null) {
+                // the thread is released before the task can be dispatched again.
+                group.onReleased();
+            }
+            if (!async) {
+                finish(startNanos, failed);
+            }
+        }
+    }
+
+    /**
+     * @return result of the method or callable. Null for void methods.
+     */
+    @Nullable
+    private Object invoke() throws Exception {
+        if (callable != null) {
+            try {
+                return callable.call();
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        } else if (invoker != null) {
+            try {
+                return (Object) invoker.invokeExact(instance);
+            } catch (Throwable e) {
+                // report errors the same way as with Method.invoke
+                throw new InvocationTargetException(e);
+            }
+        } else {
+            //noinspection ConstantConditions: method is set if there is no callable
+            return method.invoke(instance);
         }
     }
 
+    private void finish(long startNanos, boolean failed) {
+        SchedulerClock clock = scheduler.clock;
+        metrics.onFinished(clock.nanoTime() - startNanos, failed);
+        long currentMillis = clock.currentTimeMillis();
+        long executingTime = nextExecutingTime;
+        if (executingTime != 0) {
+            // executing times that passed since the one this execution was started for are skipped.
+            long firstSkipped = sequenceGenerator.next(executingTime);
+            if (firstSkipped <= currentMillis) {
+                // counting is bounded: a long overrun of a frequent task must not cost a search per missed time.
+                metrics.onSkipped(1 + sequenceGenerator.countTimes(firstSkipped, currentMillis, MAX_COUNTED_SKIPS - 1));
+            }
+        }
+        // the task is out of the scheduler queue while running: it is safe to change the time.
+        nextExecutingTime = sequenceGenerator.next(currentMillis);
+        executing = false;
+        scheduler.onTaskFinished(this);
+    }
+
     public long getLastExecutingTime() {
         return lastExecutingTime;
     }
@@ -52,8 +270,33 @@ public class SchedulerTask implements Runnable {
         return executing;
     }
 
+    /**
+     * @return execution statistics of the task.
+     */
+    @NotNull
+    public TaskMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Removes the task from the scheduler. A running execution is not interrupted but the task is not executed again.
+     *
+     * @return false if the task was cancelled already.
+     */
+    public boolean cancel() {
+        return scheduler.cancel(this);
+    }
+
+    public boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    boolean compareAndSetState(int expect, int update) {
+        return STATE.compareAndSet(this, expect, update);
+    }
+
     @Override
     public String toString() {
-        return "SchedulerTask[" + instance + "" + method + "]";
+        return "SchedulerTask[" + instance + "" + (method != null ? method : callable) + "]";
     }
 }
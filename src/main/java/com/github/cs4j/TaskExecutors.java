@@ -0,0 +1,125 @@
+package com.github.cs4j;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Executors for {@link Scheduler} tasks. Virtual threads are used when the JDK supports them (Java 21+):
+ * every task runs on its own virtual thread so blocking tasks do not need a large platform thread pool.
+ * The library is compiled for Java 8 so virtual thread API is looked up with reflection.
+ */
+public final class TaskExecutors {
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() or null if not supported.
+     */
+    @Nullable
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * @return true if {@link #newVirtualThreadPerTaskExecutor()} returns an executor.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * @return executor that starts a new virtual thread for each task or null if the JDK has no virtual threads.
+     */
+    @Nullable
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return virtual thread executor if supported or the executor created by the fallback.
+     */
+    @NotNull
+    public static ExecutorService newVirtualThreadPerTaskExecutor(@NotNull Supplier<ExecutorService> fallback) {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        return executor != null ? executor : fallback.get();
+    }
+
+    /**
+     * @return executor that runs tasks in the dispatcher thread. Use it with {@link VirtualClock} to replay
+     * a schedule deterministically: a task is finished before the clock is advanced.
+     */
+    @NotNull
+    public static ExecutorService newDirectExecutor() {
+        return new DirectExecutor();
+    }
+
+    @Nullable
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            // virtual threads are a preview feature in Java 19 and 20: check that the call works.
+            ((ExecutorService) method.invoke(null)).shutdown();
+            return method;
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs tasks in the calling thread.
+     */
+    private static final class DirectExecutor extends AbstractExecutorService {
+        private volatile boolean shutdown;
+
+        @Override
+        public void execute(@NotNull Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Executor is shut down");
+            }
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @NotNull
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, @NotNull TimeUnit unit) {
+            return shutdown;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.github.cs4j;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Execution statistics of a {@link SchedulerTask}. Values are updated without locks and can be read at any time:
+ * a snapshot of several values is not atomic.
+ * <p/>
+ * Durations are kept in a histogram with power of two buckets: bucket 0 counts executions shorter than
+ * 1 microsecond and bucket i counts executions in [2^(i-1), 2^i) microseconds. The last bucket counts all longer
+ * executions. Durations and lags are measured with {@link Scheduler#clock}.
+ * <p/>
+ * Metrics exist for every task, so they are kept small: the histogram is created when the first execution finishes.
+ * Counters are single {@code volatile long} fields updated with {@link AtomicLongFieldUpdater}, not striped counters
+ * like {@link java.util.concurrent.atomic.LongAdder}: executions of a task never overlap and the dispatcher thread
+ * does not start the task while it is executing, so every counter has one writer at a time and is not contended.
+ */
+public final class TaskMetrics {
+
+    public static final int BUCKET_COUNT = 32;
+
+    private static final AtomicLongFieldUpdater<TaskMetrics> RUN_COUNT = AtomicLongFieldUpdater.newUpdater(TaskMetrics.class, "runCount");
+    private static final AtomicLongFieldUpdater<TaskMetrics> FAILURE_COUNT = AtomicLongFieldUpdater.newUpdater(TaskMetrics.class, "failureCount");
+    private static final AtomicLongFieldUpdater<TaskMetrics> SKIPPED_COUNT = AtomicLongFieldUpdater.newUpdater(TaskMetrics.class, "skippedCount");
+    private static final AtomicLongFieldUpdater<TaskMetrics> REJECTED_COUNT = AtomicLongFieldUpdater.newUpdater(TaskMetrics.class, "rejectedCount");
+    private static final AtomicLongFieldUpdater<TaskMetrics> TOTAL_DURATION_NANOS = AtomicLongFieldUpdater.newUpdater(TaskMetrics.class, "totalDurationNanos");
+
+    private volatile long runCount;
+    private volatile long failureCount;
+    private volatile long skippedCount;
+    private volatile long rejectedCount;
+    private volatile long totalDurationNanos;
+
+    /**
+     * Null until the first execution finishes. Executions of a task never overlap: there is a single writer
+     * for the field and for every bucket at a time.
+     */
+    private volatile AtomicLongArray durationBuckets;
+
+    // written by the dispatcher thread of the task only.
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+
+    TaskMetrics() {
+    }
+
+    /**
+     * @return number of finished executions including failed ones.
+     */
+    public long getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * @return number of executions that threw an exception or completed exceptionally.
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * @return number of executing times that passed while the task was waiting for a check or was still executing.
+     * The task is not executed for these times. At most 64 times are counted per execution.
+     */
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * @return number of times the executor rejected the task.
+     */
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * @return delay between the executing time and the start of the last execution.
+     */
+    public long getLastLagMillis() {
+        return lastLagMillis;
+    }
+
+    /**
+     * @return maximum delay between the executing time and the start of an execution.
+     */
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    /**
+     * @return average duration of finished executions or 0 if there are no such executions.
+     */
+    public long getAverageDurationNanos() {
+        long n = runCount;
+        return n == 0 ? 0 : totalDurationNanos / n;
+    }
+
+    /**
+     * @return copy of the duration histogram. See {@link #getBucketUpperBoundMicros(int)}.
+     */
+    public long[] getDurationHistogram() {
+        long[] result = new long[BUCKET_COUNT];
+        AtomicLongArray buckets = durationBuckets;
+        if (buckets != null) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                result[i] = buckets.get(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return upper bound (exclusive) of the histogram bucket with the given index in microseconds.
+     * Long.MAX_VALUE for the last bucket.
+     */
+    public static long getBucketUpperBoundMicros(int bucket) {
+        if (bucket < 0 || bucket >= BUCKET_COUNT) {
+            throw new IllegalArgumentException("Illegal bucket index: " + bucket);
+        }
+        return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    /**
+     * @param percentile value in [0, 100].
+     * @return upper bound of the histogram bucket the percentile of durations belongs to or 0 if there are no executions.
+     */
+    public long getDurationPercentileMicros(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("percentile must be in [0, 100]. Value: " + percentile);
+        }
+        long[] histogram = getDurationHistogram();
+        long total = 0;
+        for (long n : histogram) {
+            total += n;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return getBucketUpperBoundMicros(i);
+            }
+        }
+        return getBucketUpperBoundMicros(BUCKET_COUNT - 1);
+    }
+
+    static int bucketIndex(long durationNanos) {
+        long micros = durationNanos / 1000;
+        return micros <= 0 ? 0 : Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    void onStarted(long lagMillis) {
+        lastLagMillis = lagMillis;
+        if (lagMillis > maxLagMillis) {
+            maxLagMillis = lagMillis;
+        }
+    }
+
+    void onFinished(long durationNanos, boolean failed) {
+        AtomicLongArray buckets = durationBuckets;
+        if (buckets == null) {
+            buckets = new AtomicLongArray(BUCKET_COUNT);
+            durationBuckets = buckets;
+        }
+        buckets.incrementAndGet(bucketIndex(durationNanos));
+        TOTAL_DURATION_NANOS.addAndGet(this, durationNanos);
+        if (failed) {
+            FAILURE_COUNT.incrementAndGet(this);
+        }
+        RUN_COUNT.incrementAndGet(this);
+    }
+
+    void onSkipped(long count) {
+        SKIPPED_COUNT.addAndGet(this, count);
+    }
+
+    void onRejected() {
+        REJECTED_COUNT.incrementAndGet(this);
+    }
+
+    @Override
+    public String toString() {
+        return "TaskMetrics{runs=" + getRunCount() + ", failures=" + getFailureCount() + ", skipped=" + getSkippedCount()
+                + ", rejected=" + getRejectedCount() + ", maxLagMillis=" + maxLagMillis + "}";
+    }
+}
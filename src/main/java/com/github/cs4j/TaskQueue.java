@@ -0,0 +1,41 @@
+package com.github.cs4j;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Tasks waiting for execution ordered by next executing time.
+ * Implementations are not thread safe: the queue is used by the scheduler thread only.
+ */
+interface TaskQueue {
+
+    /**
+     * Adds task to the queue. Next executing time of the task must not be changed while the task is in the queue.
+     */
+    void add(@NotNull SchedulerTask task);
+
+    /**
+     * Removes and returns a task with next executing time before the given time.
+     *
+     * @return due task or null if there are no due tasks.
+     */
+    @Nullable
+    SchedulerTask pollDue(long currentMillis);
+
+    /**
+     * Removes the task from the queue.
+     *
+     * @return false if the task is not in the queue.
+     */
+    boolean remove(@NotNull SchedulerTask task);
+
+    /**
+     * @return the time the queue must be checked after or Long.MAX_VALUE if the queue is empty.
+     */
+    long nextTime();
+
+    /**
+     * @return number of tasks in the queue.
+     */
+    int size();
+}
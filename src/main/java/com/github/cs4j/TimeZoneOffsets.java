@@ -0,0 +1,246 @@
+package com.github.cs4j;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.TimeZone;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Time zone offset lookups with {@link java.util.GregorianCalendar} semantics.
+ * <p/>
+ * For time zones backed by the time zone database the period between two transitions the last lookup was made in
+ * is cached and lookups within this period do not allocate. Other time zones are queried directly.
+ * <p/>
+ * After {@link #rulesEnd} periods are built from java.util offsets: transitions are found by probing the time zone
+ * day by day and bisecting the day with the change, so a lookup that leaves the cached period is slow. Offset changes
+ * less than a day apart are not seen, e.g. the one second long +02:00 offset java.util reports for Asia/Gaza
+ * at 2037-10-09T23:00Z.
+ */
+final class TimeZoneOffsets {
+
+    /**
+     * 2037-01-01T00:00Z: java.util time zones keep transitions up to 2037 only and use the last DST rule (if any)
+     * after, which is not always the same as the rules of java.time.
+     */
+    private static final long TRANSITION_TABLE_END = 2114380800000L;
+
+    /**
+     * 2000-01-01T00:00Z: transitions after this time are checked to find {@link #rulesEnd}.
+     */
+    private static final long TRANSITION_CHECK_START = 946684800000L;
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Transitions of java.util time zones are searched for up to this number of days away. A period without
+     * transitions is cut at this distance.
+     */
+    private static final int MAX_SEARCH_DAYS = 366;
+
+    @NotNull
+    private final TimeZone timeZone;
+
+    /**
+     * Time zone rules or null if time zone is not backed by the time zone database.
+     */
+    @Nullable
+    private final ZoneRules rules;
+
+    /**
+     * Time after which java.util time zone is queried directly or 0 if not found yet. It is found on the first lookup
+     * after {@link #TRANSITION_CHECK_START}, so a time zone that is created and not used does not scan the transitions.
+     * Concurrent lookups may find it twice, with the same result.
+     */
+    private volatile long rulesEnd;
+
+    /**
+     * The last used period. Periods are immutable, so no synchronization is needed.
+     */
+    @NotNull
+    private volatile Period period = new Period(0, 0, 0, 0, 0);
+
+    /**
+     * The last used period after {@link #rulesEnd}.
+     */
+    @NotNull
+    private volatile Period utilPeriod = new Period(0, 0, 0, 0, 0);
+
+    TimeZoneOffsets(@NotNull TimeZone timeZone) {
+        this.timeZone = timeZone;
+        ZoneRules zoneRules = null;
+        if (timeZone.getClass().getName().equals("sun.util.calendar.ZoneInfo")) {
+            try {
+                zoneRules = timeZone.toZoneId().getRules();
+            } catch (DateTimeException ignored) {
+            }
+        }
+        rules = zoneRules;
+    }
+
+    /**
+     * @return offset from UTC at the given instant.
+     */
+    int getOffset(long time) {
+        if (rules == null) {
+            return timeZone.getOffset(time);
+        }
+        boolean util = isAfterRulesEnd(time);
+        Period p = util ? utilPeriod : period;
+        if (time < p.start || time >= p.end) {
+            p = util ? utilPeriodAt(time) : periodAt(time);
+            if (util) {
+                utilPeriod = p;
+            } else {
+                period = p;
+            }
+        }
+        return p.offset;
+    }
+
+    /**
+     * Returns offset from UTC for the given local time the same way {@link java.util.GregorianCalendar} does it:
+     * local times skipped by a transition use the offset before the transition and repeated local times
+     * use the offset after the transition.
+     *
+     * @param localTime local time in milliseconds since 1970-01-01T00:00 local time.
+     */
+    int getOffsetByLocalTime(long localTime) {
+        if (rules == null) {
+            return timeZone.getOffset(localTime - timeZone.getRawOffset());
+        }
+        boolean util = isAfterRulesEnd(localTime);
+        Period p = util ? utilPeriod : period;
+        if (localTime < p.localStart || localTime >= p.localEnd) {
+            p = util ? utilPeriodAt(localTime - p.offset) : periodAt(localTime - p.offset);
+            while (localTime < p.localStart) {
+                p = util ? utilPeriodAt(p.start - 1) : periodAt(p.start - 1);
+            }
+            while (localTime >= p.localEnd) {
+                p = util ? utilPeriodAt(p.end) : periodAt(p.end);
+            }
+            if (util) {
+                utilPeriod = p;
+            } else {
+                period = p;
+            }
+        }
+        return p.offset;
+    }
+
+    private boolean isAfterRulesEnd(long time) {
+        if (time < TRANSITION_CHECK_START) {
+            return false;
+        }
+        long end = rulesEnd;
+        if (end == 0) {
+            assert rules != null;
+            end = findRulesEnd(timeZone, rules);
+            rulesEnd = end;
+        }
+        return time >= end;
+    }
+
+    /**
+     * Some java.util time zones stop following the rules before 2038, e.g. when the last rule
+     * can't be expressed by {@link java.util.SimpleTimeZone}. Finds the first transition the time zone does not follow.
+     */
+    private static long findRulesEnd(@NotNull TimeZone timeZone, @NotNull ZoneRules rules) {
+        ZoneOffsetTransition t = rules.nextTransition(Instant.ofEpochMilli(TRANSITION_CHECK_START));
+        for (; t != null && t.toEpochSecond() * 1000 < TRANSITION_TABLE_END; t = rules.nextTransition(t.getInstant())) {
+            long time = t.toEpochSecond() * 1000;
+            if (timeZone.getOffset(time) != t.getOffsetAfter().getTotalSeconds() * 1000) {
+                return time;
+            }
+        }
+        return TRANSITION_TABLE_END;
+    }
+
+    @NotNull
+    private Period periodAt(long time) {
+        assert rules != null;
+        Instant instant = Instant.ofEpochMilli(time);
+        // previousTransition() returns transitions strictly before the instant.
+        ZoneOffsetTransition prev = time == Long.MAX_VALUE ? null : rules.previousTransition(Instant.ofEpochMilli(time + 1));
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        int offset = rules.getOffset(instant).getTotalSeconds() * 1000;
+        long start = prev == null ? Long.MIN_VALUE : prev.toEpochSecond() * 1000;
+        long end = next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000;
+        long localStart = prev == null ? Long.MIN_VALUE : start + offset;
+        long localEnd = next == null ? Long.MAX_VALUE : end + next.getOffsetAfter().getTotalSeconds() * 1000;
+        return new Period(start, end, offset, localStart, localEnd);
+    }
+
+    /**
+     * Builds the period from java.util offsets. Transitions are expected to be more than a day apart.
+     */
+    @NotNull
+    private Period utilPeriodAt(long time) {
+        int offset = timeZone.getOffset(time);
+        long start = time;
+        for (int i = 0; i < MAX_SEARCH_DAYS && start > Long.MIN_VALUE + DAY; i++) {
+            long t = start - DAY;
+            if (timeZone.getOffset(t) != offset) {
+                start = findTransition(t, start);
+                break;
+            }
+            start = t;
+        }
+        long end = time;
+        int offsetAfter = offset;
+        for (int i = 0; i < MAX_SEARCH_DAYS && end < Long.MAX_VALUE - DAY; i++) {
+            long t = end + DAY;
+            if (timeZone.getOffset(t) != offset) {
+                end = findTransition(end, t);
+                offsetAfter = timeZone.getOffset(end);
+                break;
+            }
+            end = t;
+        }
+        return new Period(start, end, offset, start + offset, end + offsetAfter);
+    }
+
+    /**
+     * @return the first instant in (before, after] with the offset of the after instant. The offset changes once in the range.
+     */
+    private long findTransition(long before, long after) {
+        int offset = timeZone.getOffset(after);
+        while (after - before > 1) {
+            long mid = before + (after - before) / 2;
+            if (timeZone.getOffset(mid) == offset) {
+                after = mid;
+            } else {
+                before = mid;
+            }
+        }
+        return after;
+    }
+
+    /**
+     * Period between two time zone transitions.
+     */
+    private static final class Period {
+        /**
+         * Instants in [start, end) range have the same offset.
+         */
+        final long start;
+        final long end;
+        final int offset;
+
+        /**
+         * Local times in [localStart, localEnd) range are resolved to this period.
+         */
+        final long localStart;
+        final long localEnd;
+
+        Period(long start, long end, int offset, long localStart, long localEnd) {
+            this.start = start;
+            this.end = end;
+            this.offset = offset;
+            this.localStart = localStart;
+            this.localEnd = localEnd;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.github.cs4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Hierarchical timing wheel: second, minute and hour wheels plus an overflow heap for tasks that are not due today.
+ * Insert, poll and remove are O(1) for all tasks that are due within the current day.
+ * <p/>
+ * The wheel has one second resolution: all tasks within the second are due when the second starts.
+ * Cron executing times are whole seconds so this is the same as in {@link HeapTaskQueue}.
+ * Wheels are aligned to UTC minutes, hours and days. Tasks are moved to the lower wheel when the wheel
+ * is turned to their minute, hour or day.
+ */
+class TimingWheelTaskQueue implements TaskQueue {
+
+    private static final long SECOND_MILLIS = 1000;
+    private static final int SECONDS_PER_MINUTE = 60;
+    private static final int SECONDS_PER_HOUR = 60 * SECONDS_PER_MINUTE;
+    private static final int SECONDS_PER_DAY = 24 * SECONDS_PER_HOUR;
+
+    /**
+     * Slot of the tasks that are due already.
+     */
+    private static final int DUE_SLOT = 0;
+    private static final int SECOND_SLOTS = 1;
+    private static final int MINUTE_SLOTS = SECOND_SLOTS + 60;
+    private static final int HOUR_SLOTS = MINUTE_SLOTS + 60;
+
+    /**
+     * Heads of doubly linked lists of tasks linked with {@link SchedulerTask#queueNext} and {@link SchedulerTask#queuePrev}:
+     * due tasks, second, minute and hour wheels. Each task keeps its slot in {@link SchedulerTask#queueSlot}.
+     */
+    @NotNull
+    private final SchedulerTask[] slots = new SchedulerTask[HOUR_SLOTS + 24];
+
+    /**
+     * Tasks that are not due today.
+     */
+    @NotNull
+    private final HeapTaskQueue overflow = new HeapTaskQueue();
+
+    /**
+     * Epoch second the wheel points to. All slots before this second are processed.
+     */
+    private long currentSecond;
+
+    private int size;
+
+    TimingWheelTaskQueue(long currentMillis) {
+        currentSecond = Math.floorDiv(currentMillis, SECOND_MILLIS);
+    }
+
+    @Override
+    public void add(@NotNull SchedulerTask task) {
+        size++;
+        insert(task);
+    }
+
+    private void insert(@NotNull SchedulerTask task) {
+        long second = Math.floorDiv(task.nextExecutingTime, SECOND_MILLIS);
+        if (second < currentSecond) {
+            link(DUE_SLOT, task);
+        } else if (second / SECONDS_PER_MINUTE == currentSecond / SECONDS_PER_MINUTE) {
+            link(SECOND_SLOTS + (int) (second % SECONDS_PER_MINUTE), task);
+        } else if (second / SECONDS_PER_HOUR == currentSecond / SECONDS_PER_HOUR) {
+            link(MINUTE_SLOTS + (int) (second / SECONDS_PER_MINUTE % 60), task);
+        } else if (second / SECONDS_PER_DAY == currentSecond / SECONDS_PER_DAY) {
+            link(HOUR_SLOTS + (int) (second / SECONDS_PER_HOUR % 24), task);
+        } else {
+            task.queueSlot = -1;
+            overflow.add(task);
+        }
+    }
+
+    private void link(int slot, @NotNull SchedulerTask task) {
+        SchedulerTask head = slots[slot];
+        task.queueNext = head;
+        task.queuePrev = null;
+        task.queueSlot = slot;
+        if (head != null) {
+            head.queuePrev = task;
+        }
+        slots[slot] = task;
+    }
+
+    private void unlink(@NotNull SchedulerTask task) {
+        SchedulerTask prev = task.queuePrev;
+        SchedulerTask next = task.queueNext;
+        if (prev == null) {
+            slots[task.queueSlot] = next;
+        } else {
+            prev.queueNext = next;
+        }
+        if (next != null) {
+            next.queuePrev = prev;
+        }
+        task.queueNext = null;
+        task.queuePrev = null;
+        task.queueSlot = -1;
+    }
+
+    /**
+     * Detaches the whole slot list.
+     *
+     * @return the head of the list.
+     */
+    @Nullable
+    private SchedulerTask takeSlot(int slot) {
+        SchedulerTask head = slots[slot];
+        slots[slot] = null;
+        return head;
+    }
+
+    @Nullable
+    @Override
+    public SchedulerTask pollDue(long currentMillis) {
+        if (Math.floorDiv(currentMillis, SECOND_MILLIS) < currentSecond - 1) {
+            // system time was set back: the due slot and the wheel position are ahead of the time, rebuild the wheel.
+            reset(currentMillis);
+        }
+        if (slots[DUE_SLOT] == null) {
+            advance(currentMillis);
+        }
+        SchedulerTask task = slots[DUE_SLOT];
+        if (task != null) {
+            unlink(task);
+            size--;
+        }
+        return task;
+    }
+
+    @Override
+    public boolean remove(@NotNull SchedulerTask task) {
+        if (task.queueSlot >= 0) {
+            unlink(task);
+        } else if (!overflow.remove(task)) {
+            return false;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Turns the wheel to the given time and collects all tasks that are due.
+     */
+    private void advance(long currentMillis) {
+        if (currentMillis - currentSecond * SECOND_MILLIS > SECONDS_PER_DAY * SECOND_MILLIS) {
+            // scheduler was not checking the queue for too long (system time change or sleep): rebuild the wheel.
+            reset(currentMillis);
+        }
+        while (currentSecond * SECOND_MILLIS < currentMillis) {
+            int secondSlot = SECOND_SLOTS + (int) (currentSecond % SECONDS_PER_MINUTE);
+            for (SchedulerTask t = takeSlot(secondSlot), next; t != null; t = next) {
+                next = t.queueNext;
+                link(DUE_SLOT, t);
+            }
+            currentSecond++;
+            if (currentSecond % SECONDS_PER_MINUTE != 0) {
+                continue;
+            }
+            if (currentSecond % SECONDS_PER_HOUR == 0) {
+                if (currentSecond % SECONDS_PER_DAY == 0) {
+                    long nextDayMillis = (currentSecond + SECONDS_PER_DAY) * SECOND_MILLIS;
+                    for (SchedulerTask t; (t = overflow.pollDue(nextDayMillis)) != null; ) {
+                        insert(t);
+                    }
+                }
+                moveAll(takeSlot(HOUR_SLOTS + (int) (currentSecond / SECONDS_PER_HOUR % 24)));
+            }
+            moveAll(takeSlot(MINUTE_SLOTS + (int) (currentSecond / SECONDS_PER_MINUTE % 60)));
+        }
+    }
+
+    /**
+     * Re-inserts all tasks from the detached list using the current wheel position.
+     */
+    private void moveAll(@Nullable SchedulerTask head) {
+        while (head != null) {
+            SchedulerTask next = head.queueNext;
+            insert(head);
+            head = next;
+        }
+    }
+
+    private void reset(long currentMillis) {
+        List<SchedulerTask> allTasks = new ArrayList<>(size);
+        for (int i = 0; i < slots.length; i++) {
+            for (SchedulerTask t = takeSlot(i); t != null; t = t.queueNext) {
+                allTasks.add(t);
+            }
+        }
+        for (SchedulerTask t; (t = overflow.pollDue(Long.MAX_VALUE)) != null; ) {
+            allTasks.add(t);
+        }
+        currentSecond = Math.floorDiv(currentMillis, SECOND_MILLIS);
+        for (SchedulerTask t : allTasks) {
+            insert(t);
+        }
+    }
+
+    @Override
+    public long nextTime() {
+        if (size == 0) {
+            return Long.MAX_VALUE;
+        }
+        if (slots[DUE_SLOT] != null) {
+            return (currentSecond - 1) * SECOND_MILLIS;
+        }
+        long minuteEnd = (currentSecond / SECONDS_PER_MINUTE + 1) * SECONDS_PER_MINUTE;
+        for (long second = currentSecond; second < minuteEnd; second++) {
+            if (slots[SECOND_SLOTS + (int) (second % SECONDS_PER_MINUTE)] != null) {
+                return second * SECOND_MILLIS;
+            }
+        }
+        // the next minute must be moved to the second wheel.
+        return minuteEnd * SECOND_MILLIS;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
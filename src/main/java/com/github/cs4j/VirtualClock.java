@@ -0,0 +1,213 @@
+package com.github.cs4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Simulated time for {@link Scheduler}: the time changes only when {@link #advance(long, TimeUnit)} or
+ * {@link #advanceTo(long)} is called.
+ * <p/>
+ * Advancing the clock moves it through the wake-up times of the parked dispatcher threads one by one and waits
+ * until all registered threads are parked again after each step. With an executor that runs tasks in the calling
+ * thread (see {@link TaskExecutors#newDirectExecutor()}) every task is executed at an exact simulated time and
+ * months of firing are replayed in milliseconds in a deterministic order. Tasks that run in other threads are
+ * not waited for.
+ */
+public class VirtualClock implements SchedulerClock {
+
+    /**
+     * The maximum time: nanoTime() is the time in milliseconds multiplied by 10^6.
+     */
+    private static final long MAX_TIME = Long.MAX_VALUE / 1_000_000 - 1;
+
+    private final Object lock = new Object();
+
+    /**
+     * Current time in milliseconds. Written under the lock.
+     */
+    private volatile long time;
+
+    /**
+     * Difference between {@link #currentTimeMillis()} and the time. See {@link #adjustWallClock(long, TimeUnit)}.
+     */
+    private volatile long wallClockOffset;
+
+    /**
+     * Dispatcher threads registered with {@link #register(Thread)}. Guarded by the lock.
+     */
+    @NotNull
+    private final List<Thread> threads = new ArrayList<>();
+
+    /**
+     * Parked threads and the times in milliseconds they are waiting for. Guarded by the lock.
+     */
+    @NotNull
+    private final Map<Thread, Long> sleepers = new IdentityHashMap<>();
+
+    /**
+     * Threads unparked while they were not parked: their next park returns at once, as with the permit of
+     * {@link LockSupport}. Guarded by the lock.
+     */
+    @NotNull
+    private final Set<Thread> permits = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public VirtualClock(long startTimeMillis) {
+        checkTime(startTimeMillis);
+        time = startTimeMillis;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return time + wallClockOffset;
+    }
+
+    @Override
+    public long nanoTime() {
+        return time * 1_000_000;
+    }
+
+    @Override
+    public void parkUntil(@NotNull Object blocker, long deadlineNanos) {
+        Thread thread = Thread.currentThread();
+        synchronized (lock) {
+            if (permits.remove(thread)) {
+                // unparked between the wake-up check of the caller and this call: the wake-up must not be lost.
+                return;
+            }
+            // the deadline is checked under the lock: the clock cannot be advanced past it unnoticed.
+            long deadline = deadlineNanos / 1_000_000 + (deadlineNanos % 1_000_000 > 0 ? 1 : 0);
+            if (deadline <= time) {
+                return;
+            }
+            sleepers.put(thread, deadline);
+            lock.notifyAll();
+        }
+        LockSupport.park(blocker);
+        synchronized (lock) {
+            if (sleepers.remove(thread) != null) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void unpark(@NotNull Thread thread) {
+        synchronized (lock) {
+            // the thread is busy from now on: the clock is not advanced until it is parked again.
+            if (sleepers.remove(thread) == null) {
+                permits.add(thread);
+            }
+        }
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public void register(@NotNull Thread thread) {
+        synchronized (lock) {
+            threads.add(thread);
+        }
+    }
+
+    /**
+     * Changes the time returned by {@link #currentTimeMillis()} by the given amount, as a system time change does:
+     * {@link #nanoTime()}, parked threads and the time of {@link #advanceTo(long)} are not affected.
+     * The amount can be negative.
+     */
+    public void adjustWallClock(long amount, @NotNull TimeUnit unit) {
+        synchronized (lock) {
+            wallClockOffset += unit.toMillis(amount);
+        }
+    }
+
+    /**
+     * Advances the clock by the given duration.
+     *
+     * @throws IllegalArgumentException if the duration is negative
+     * @see #advanceTo(long)
+     */
+    public void advance(long duration, @NotNull TimeUnit unit) throws InterruptedException {
+        if (duration < 0) {
+            throw new IllegalArgumentException("duration < 0. Value: " + duration);
+        }
+        long millis = unit.toMillis(duration);
+        advanceTo(millis > MAX_TIME - time ? MAX_TIME : time + millis);
+    }
+
+    /**
+     * Advances the clock to the given time. Parked threads are woken up in the order of their wake-up times
+     * and the clock waits until all registered threads are parked before every step and before return.
+     *
+     * @throws IllegalArgumentException if the time is before the current time
+     */
+    public void advanceTo(long timeMillis) throws InterruptedException {
+        checkTime(timeMillis);
+        synchronized (lock) {
+            if (timeMillis < time) {
+                throw new IllegalArgumentException("Time is before the current time: " + timeMillis + " < " + time);
+            }
+            while (true) {
+                awaitIdle();
+                long next = Long.MAX_VALUE;
+                for (long deadline : sleepers.values()) {
+                    next = Math.min(next, deadline);
+                }
+                if (next > timeMillis) {
+                    time = timeMillis;
+                    return;
+                }
+                time = Math.max(time, next);
+                for (Iterator<Map.Entry<Thread, Long>> it = sleepers.entrySet().iterator(); it.hasNext(); ) {
+                    Map.Entry<Thread, Long> e = it.next();
+                    if (e.getValue() <= time) {
+                        // IdentityHashMap entries are invalid after removal.
+                        Thread thread = e.getKey();
+                        it.remove();
+                        LockSupport.unpark(thread);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until every registered thread that is not terminated is parked. Must be called under the lock.
+     */
+    private void awaitIdle() throws InterruptedException {
+        while (true) {
+            boolean idle = true;
+            for (Iterator<Thread> it = threads.iterator(); it.hasNext(); ) {
+                Thread thread = it.next();
+                if (thread.getState() == Thread.State.TERMINATED) {
+                    it.remove();
+                    permits.remove(thread);
+                } else if (!sleepers.containsKey(thread)) {
+                    idle = false;
+                }
+            }
+            if (idle) {
+                return;
+            }
+            // terminated threads do not notify: check them periodically.
+            lock.wait(10);
+        }
+    }
+
+    private static void checkTime(long timeMillis) {
+        if (timeMillis < 0 || timeMillis > MAX_TIME) {
+            throw new IllegalArgumentException("Time is out of range: " + timeMillis);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualClock{time=" + time + ", wallClockOffset=" + wallClockOffset + "}";
+    }
+}
@@ -0,0 +1,215 @@
+package com.github.cs4j.processor;
+
+import com.github.cs4j.CronSequenceGenerator;
+import com.github.cs4j.Scheduled;
+import com.github.cs4j.ScheduledRegistrar;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Annotation processor for {@link Scheduled} methods. Validates methods at compile time and generates
+ * {@link ScheduledRegistrar} for every class with scheduled methods.
+ * <p/>
+ * The processor is optional and is not registered for discovery: enable it with
+ * {@code -processor com.github.cs4j.processor.ScheduledProcessor}.
+ * <p/>
+ * Anonymous, local, abstract and private classes are skipped: they are scheduled with reflection as before.
+ */
+public class ScheduledProcessor extends AbstractProcessor {
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(Scheduled.class.getName());
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> types = new LinkedHashSet<>();
+        for (Element e : roundEnv.getElementsAnnotatedWith(Scheduled.class)) {
+            if (e.getKind() == ElementKind.METHOD && e.getEnclosingElement() instanceof TypeElement) {
+                types.add((TypeElement) e.getEnclosingElement());
+            }
+        }
+        for (TypeElement type : types) {
+            if (isSupported(type)) {
+                processType(type);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSupported(@NotNull TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS && type.getKind() != ElementKind.ENUM) {
+            return false;
+        }
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return false;
+        }
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            TypeElement t = (TypeElement) e;
+            NestingKind nesting = t.getNestingKind();
+            if (nesting == NestingKind.ANONYMOUS || nesting == NestingKind.LOCAL || t.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            if (nesting == NestingKind.MEMBER && !t.getModifiers().contains(Modifier.STATIC) && t != type) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void processType(@NotNull TypeElement type) {
+        List<ExecutableElement> methods = new ArrayList<>();
+        List<Scheduled> annotations = new ArrayList<>();
+        boolean valid = true;
+        // the same order as Scheduler uses: the class first, superclasses after.
+        for (TypeElement t = type; t != null; t = superclass(t)) {
+            for (Element e : t.getEnclosedElements()) {
+                Scheduled annotation = e.getAnnotation(Scheduled.class);
+                if (e.getKind() != ElementKind.METHOD || annotation == null) {
+                    continue;
+                }
+                ExecutableElement method = (ExecutableElement) e;
+                if (!validate(method, annotation)) {
+                    valid = false;
+                    continue;
+                }
+                methods.add(method);
+                annotations.add(annotation);
+            }
+        }
+        if (!valid) {
+            return;
+        }
+        try {
+            writeRegistrar(type, methods, annotations);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write scheduled registrar: " + e, type);
+        }
+    }
+
+    private boolean validate(@NotNull ExecutableElement method, @NotNull Scheduled annotation) {
+        if (!method.getModifiers().contains(Modifier.PUBLIC)) {
+            error("Method is private: " + method, method);
+            return false;
+        }
+        if (!method.getParameters().isEmpty()) {
+            error("Method has non zero parameters: " + method, method);
+            return false;
+        }
+        try {
+            new CronSequenceGenerator(annotation.cron(), TimeZone.getTimeZone("UTC"));
+        } catch (RuntimeException e) {
+            error("Invalid cron expression: " + e.getMessage(), method);
+            return false;
+        }
+        return true;
+    }
+
+    private void error(@NotNull String message, @NotNull Element element) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    @Nullable
+    private static TypeElement superclass(@NotNull TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals(Object.class.getName()) ? null : element;
+    }
+
+    private void writeRegistrar(@NotNull TypeElement type, @NotNull List<ExecutableElement> methods, @NotNull List<Scheduled> annotations) throws IOException {
+        PackageElement pkg = processingEnv.getElementUtils().getPackageOf(type);
+        String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + ScheduledRegistrar.CLASS_NAME_SUFFIX;
+        String typeName = processingEnv.getTypeUtils().erasure(type.asType()).toString();
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(binaryName + ScheduledRegistrar.CLASS_NAME_SUFFIX, type);
+        try (Writer w = file.openWriter()) {
+            if (!packageName.isEmpty()) {
+                w.write("package " + packageName + ";\n\n");
+            }
+            w.write("/**\n * Generated by " + ScheduledProcessor.class.getName() + ": scheduled methods of {@link " + type.getQualifiedName() + "}.\n */\n");
+            w.write("@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n");
+            w.write("public final class " + simpleName + " implements com.github.cs4j.ScheduledRegistrar<" + typeName + "> {\n\n");
+            // methods are resolved once: tasks are described by the method like tasks of scanned classes.
+            w.write("    private static final java.lang.reflect.Method[] METHODS = {\n");
+            for (ExecutableElement method : methods) {
+                String declaringClassName = processingEnv.getElementUtils().getBinaryName((TypeElement) method.getEnclosingElement()).toString();
+                w.write("            com.github.cs4j.ScheduledRegistrar.findMethod(" + typeName + ".class, "
+                        + toJavaString(declaringClassName) + ", " + toJavaString(method.getSimpleName().toString()) + "),\n");
+            }
+            w.write("    };\n\n");
+            w.write("    @Override\n");
+            w.write("    public java.util.List<com.github.cs4j.SchedulerTask> createTasks(com.github.cs4j.Scheduler scheduler, " + typeName + " instance) {\n");
+            w.write("        java.util.TimeZone timeZone = java.util.TimeZone.getDefault();\n");
+            w.write("        java.util.List<com.github.cs4j.SchedulerTask> tasks = new java.util.ArrayList<>(" + methods.size() + ");\n");
+            for (int i = 0; i < methods.size(); i++) {
+                ExecutableElement method = methods.get(i);
+                String target = method.getModifiers().contains(Modifier.STATIC)
+                        ? processingEnv.getTypeUtils().erasure(method.getEnclosingElement().asType()).toString()
+                        : "instance";
+                w.write("        tasks.add(new com.github.cs4j.SchedulerTask(scheduler, instance, METHODS[" + i + "], () -> {\n");
+                if (method.getReturnType().getKind() == TypeKind.VOID) {
+                    w.write("            " + target + "." + method.getSimpleName() + "();\n");
+                    w.write("            return null;\n");
+                } else {
+                    // the result is checked for CompletionStage by SchedulerTask.
+                    w.write("            return " + target + "." + method.getSimpleName() + "();\n");
+                }
+                Scheduled annotation = annotations.get(i);
+                w.write("        }, com.github.cs4j.CronSequenceGeneratorCache.SHARED.get(" + toJavaString(annotation.cron()) + ", timeZone), "
+                        + toJavaString(annotation.executor()) + "));\n");
+            }
+            w.write("        return tasks;\n");
+            w.write("    }\n");
+            w.write("}\n");
+        }
+    }
+
+    @NotNull
+    private static String toJavaString(@NotNull String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7E) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,143 @@
+package com.github.cs4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncEventLoggerTest extends Assert {
+
+    @Test
+    public void checkEventsAreDeliveredInOrder() throws InterruptedException {
+        int producers = 4;
+        int eventsPerProducer = 10_000;
+        List<List<String>> received = new ArrayList<>();
+        for (int i = 0; i < producers; i++) {
+            received.add(new ArrayList<>());
+        }
+        AsyncEventLogger logger = new AsyncEventLogger(new EventLogger() {
+            @Override
+            public void onError(@NotNull String message, @Nullable Exception e) {
+                // called by the consumer thread only.
+                received.get(message.charAt(0) - '0').add(message);
+            }
+        }, 100, "async-logger");
+        assertEquals(128, logger.getCapacity());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < producers; i++) {
+            int producer = i;
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < eventsPerProducer; j++) {
+                    logger.onError(producer + ":" + j, null);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        logger.close();
+        assertEquals(producers * eventsPerProducer, logger.getDeliveredCount() + logger.getDroppedCount());
+        for (int i = 0; i < producers; i++) {
+            // dropped events leave gaps but the order is kept.
+            int last = -1;
+            for (String message : received.get(i)) {
+                int j = Integer.parseInt(message.substring(2));
+                assertTrue(j > last);
+                last = j;
+            }
+        }
+    }
+
+    @Test
+    public void checkOverflowIsCountedWithoutBlocking() throws InterruptedException {
+        CountDownLatch consumerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> checks = Collections.synchronizedList(new ArrayList<>());
+        AsyncEventLogger logger = new AsyncEventLogger(new EventLogger() {
+            @Override
+            public void onCheckInterval() {
+                checks.add(checks.size());
+                consumerBlocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }, 4, "async-logger");
+        logger.onCheckInterval();
+        assertTrue(consumerBlocked.await(1, TimeUnit.SECONDS));
+        for (int i = 0; i < 10; i++) {
+            logger.onCheckInterval();
+        }
+        assertEquals(6, logger.getDroppedCount());
+        release.countDown();
+        logger.close();
+        assertEquals(5, logger.getDeliveredCount());
+        assertEquals(5, checks.size());
+        logger.onCheckInterval();
+        assertEquals(7, logger.getDroppedCount());
+    }
+
+    @Test
+    public void checkInterruptedCloseRestoresInterruptFlag() throws InterruptedException {
+        CountDownLatch consumerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncEventLogger logger = new AsyncEventLogger(new EventLogger() {
+            @Override
+            public void onCheckInterval() {
+                consumerBlocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }, 4, "async-logger");
+        logger.onCheckInterval();
+        assertTrue(consumerBlocked.await(1, TimeUnit.SECONDS));
+        Thread.currentThread().interrupt();
+        // the consumer is blocked: close() returns without waiting for it.
+        logger.close();
+        assertTrue(Thread.interrupted());
+        release.countDown();
+        logger.close();
+        assertEquals(1, logger.getDeliveredCount());
+    }
+
+    @Test
+    public void checkSchedulerErrorsAreDelivered() throws InterruptedException {
+        CountDownLatch errors = new CountDownLatch(2);
+        AsyncEventLogger logger = new AsyncEventLogger(new EventLogger() {
+            @Override
+            public void onError(@NotNull String message, @Nullable Exception e) {
+                errors.countDown();
+            }
+        }, 1024, "async-logger");
+        VirtualClock clock = new VirtualClock(0);
+        try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 0, 1, TimeUnit.MINUTES, "T30", Scheduler.Mode.DEADLINE, 1, clock)) {
+            scheduler.setEventLogger(logger);
+            scheduler.schedule(() -> {
+                throw new IllegalStateException();
+            }, "* * * * * *");
+            clock.advance(1500, TimeUnit.MILLISECONDS);
+            assertTrue(errors.await(1, TimeUnit.SECONDS));
+        } finally {
+            logger.close();
+        }
+        assertEquals(0, logger.getDroppedCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkIllegalCapacityIsRejected() {
+        new AsyncEventLogger(new EventLogger() {
+        }, 0, "async-logger");
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.cs4j;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+public class CronSequenceGeneratorCacheTest extends Assert {
+
+    @Test
+    public void checkGeneratorsAreShared() {
+        CronSequenceGeneratorCache cache = new CronSequenceGeneratorCache(10);
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        CronSequenceGenerator g = cache.get("0 * * * * *", utc);
+        assertSame(g, cache.get("0 * * * * *", TimeZone.getTimeZone("UTC")));
+        assertNotSame(g, cache.get("0 * * * * *", TimeZone.getTimeZone("Europe/Berlin")));
+        assertNotSame(g, cache.get("1 * * * * *", utc));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(3, cache.size());
+
+        // changes of the time zone passed to the cache do not affect cached generators
+        utc.setRawOffset(3600_000);
+        assertNotSame(g, cache.get("0 * * * * *", utc));
+    }
+
+    @Test
+    public void checkSizeIsBounded() {
+        CronSequenceGeneratorCache cache = new CronSequenceGeneratorCache(2);
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        CronSequenceGenerator g = cache.get("0 * * * * *", utc);
+        cache.get("1 * * * * *", utc);
+        cache.get("0 * * * * *", utc);
+        cache.get("2 * * * * *", utc);
+        assertEquals(2, cache.size());
+        assertSame(g, cache.get("0 * * * * *", utc));
+        assertEquals(3, cache.getMissCount());
+        // the least recently used generator was evicted
+        cache.get("1 * * * * *", utc);
+        assertEquals(4, cache.getMissCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkInvalidExpression() {
+        new CronSequenceGeneratorCache(2).get("0 * * * *", TimeZone.getTimeZone("UTC"));
+    }
+}
@@ -0,0 +1,369 @@
+package com.github.cs4j;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * CronSequenceGenerator tests for daylight saving time changes. Expected values are the same
+ * as returned by the original java.util.Calendar based implementation.
+ */
+public class CronSequenceGeneratorTest extends Assert {
+
+    @Test
+    public void checkSkippedLocalTime() {
+        CronSequenceGenerator g = new CronSequenceGenerator("0 30 2 * * *", TimeZone.getTimeZone("Europe/Berlin"));
+        assertEquals(time("2018-03-26T00:30:00Z"), g.next(time("2018-03-24T12:00:00Z")));
+    }
+
+    @Test
+    public void checkSkippedMidnight() {
+        CronSequenceGenerator g = new CronSequenceGenerator("0 0 0 * * *", TimeZone.getTimeZone("America/Sao_Paulo"));
+        assertEquals(time("2018-11-05T02:00:00Z"), g.next(time("2018-11-03T12:00:00Z")));
+    }
+
+    @Test
+    public void checkRepeatedLocalTime() {
+        CronSequenceGenerator g = new CronSequenceGenerator("0 30 2 * * *", TimeZone.getTimeZone("Europe/Berlin"));
+        assertEquals(time("2018-10-28T01:30:00Z"), g.next(time("2018-10-27T12:00:00Z")));
+        assertEquals(time("2018-10-29T01:30:00Z"), g.next(time("2018-10-28T00:30:00Z")));
+    }
+
+    @Test
+    public void checkLeapDay() {
+        CronSequenceGenerator g = new CronSequenceGenerator("0 0 0 29 2 *", TimeZone.getTimeZone("UTC"));
+        assertEquals(time("2020-02-29T00:00:00Z"), g.next(time("2017-01-01T00:00:00Z")));
+    }
+
+    @Test
+    public void checkDaylightSavingAfterTransitionTable() {
+        CronSequenceGenerator g = new CronSequenceGenerator("0 30 2 * * *", TimeZone.getTimeZone("Europe/Berlin"));
+        assertEquals(time("2040-03-26T00:30:00Z"), g.next(time("2040-03-24T12:00:00Z")));
+        assertEquals(time("2040-10-28T01:30:00Z"), g.next(time("2040-10-27T12:00:00Z")));
+        assertEquals(time("2040-10-29T01:30:00Z"), g.next(time("2040-10-28T00:30:00Z")));
+        g = new CronSequenceGenerator("0 30 2 * * *", TimeZone.getTimeZone("America/New_York"));
+        assertEquals(time("2045-03-13T06:30:00Z"), g.next(time("2045-03-11T12:00:00Z")));
+    }
+
+    /**
+     * java.util stops following the time zone rules of these zones during 2037.
+     */
+    @Test
+    public void checkTimeZonesDiverging2037() {
+        for (String id : new String[]{"Africa/Windhoek", "Asia/Gaza", "Asia/Hebron"}) {
+            TimeZone timeZone = TimeZone.getTimeZone(id);
+            CronSequenceGenerator g = new CronSequenceGenerator("0 0 12 * * *", timeZone);
+            Calendar calendar = new GregorianCalendar(timeZone);
+            for (long t = g.next(time("2036-06-01T00:00:00Z")); t < time("2038-06-01T00:00:00Z"); t = g.next(t)) {
+                calendar.setTimeInMillis(t);
+                assertEquals(id + " at " + Instant.ofEpochMilli(t), 12, calendar.get(Calendar.HOUR_OF_DAY));
+                assertEquals(id + " at " + Instant.ofEpochMilli(t), 0, calendar.get(Calendar.MINUTE));
+            }
+        }
+    }
+
+    /**
+     * next() does not allocate once the time zone period of the times is cached. Needs a JVM that counts
+     * allocated bytes per thread.
+     */
+    @Test
+    public void checkNextDoesNotAllocate() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        long threadId = Thread.currentThread().getId();
+        for (String expression : new String[]{"*/15 * * * * *", "0 */5 9-17 * * MON-FRI", "0 30 2 * * *", "0 0 0 1-7 * MON"}) {
+            CronSequenceGenerator g = new CronSequenceGenerator(expression, TimeZone.getTimeZone("America/New_York"));
+            // seeds and results are in the summer time of 2018
+            long start = time("2018-04-01T00:00:00Z");
+            long allocated = 0;
+            for (int round = 0; round < 2; round++) {
+                allocated = threads.getThreadAllocatedBytes(threadId);
+                for (int i = 0; i < 1000; i++) {
+                    g.next(start + i * 3600_000L);
+                }
+                allocated = threads.getThreadAllocatedBytes(threadId) - allocated;
+            }
+            // the counter may allocate itself, e.g. an array of thread ids
+            assertTrue(expression + ": " + allocated + " bytes allocated", allocated < 1000);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkEmptyFieldIsRejected() {
+        new CronSequenceGenerator("0 0 0 5-3/1 * *");
+    }
+
+    @Test
+    public void checkEqualsAndHashCode() {
+        CronSequenceGenerator g1 = new CronSequenceGenerator("0 0 12 * JAN-MAR SUN");
+        CronSequenceGenerator g2 = new CronSequenceGenerator("0 0 12 * 1,2,3 7");
+        assertEquals(g1, g2);
+        assertEquals(g1.hashCode(), g2.hashCode());
+        assertNotEquals(g1, new CronSequenceGenerator("0 0 12 * JAN-MAR MON"));
+
+        // the same hash code as with java.util.BitSet fields
+        BitSet months = new BitSet();
+        months.set(0, 3);
+        BitSet daysOfMonth = new BitSet();
+        daysOfMonth.set(1, 32);
+        BitSet daysOfWeek = new BitSet();
+        daysOfWeek.set(0);
+        BitSet hours = new BitSet();
+        hours.set(12);
+        BitSet zero = new BitSet();
+        zero.set(0);
+        assertEquals(17 * months.hashCode() + 29 * daysOfMonth.hashCode() + 37 * daysOfWeek.hashCode() +
+                41 * hours.hashCode() + 53 * zero.hashCode() + 61 * zero.hashCode(), g1.hashCode());
+    }
+
+    @Test
+    public void checkNextTimes() {
+        for (String expression : new String[]{"*/7 * * * * *", "0 */20 1-3 * * *", "0 30 2 * * *"}) {
+            CronSequenceGenerator g = new CronSequenceGenerator(expression, TimeZone.getTimeZone("Europe/Berlin"));
+            for (long date : new long[]{time("2018-03-24T12:00:00Z"), time("2018-10-27T12:00:00Z")}) {
+                long[] times = new long[2000];
+                assertEquals(times.length, g.nextTimes(date, times));
+                long time = date;
+                for (long t : times) {
+                    time = g.next(time);
+                    assertEquals(time, t);
+                }
+            }
+        }
+    }
+
+    /**
+     * next() keeps the behaviour of the original implementation and can return a time that does not match
+     * the pattern: nextTimes() must continue from such time the same way.
+     */
+    @Test
+    public void checkNextTimesAfterNonMatchingTime() {
+        CronSequenceGenerator g = new CronSequenceGenerator("*/7 * 1-3 1 */3 SAT", TimeZone.getTimeZone("UTC"));
+        assertFalse(g.matches(g.next(638872730598L)));
+        assertNextTimesEqualNextLoop(g, 638872730598L);
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            CronSequenceGenerator generator = randomGenerator(random);
+            try {
+                assertNextTimesEqualNextLoop(generator, randomDate(random));
+            } catch (IllegalArgumentException e) {
+                // search for more than a year ahead is a runaway search for next()
+            }
+        }
+    }
+
+    /**
+     * Values of daily and weekly patterns are found on the next matching day without a full search.
+     */
+    @Test
+    public void checkNextTimesAcrossDays() {
+        String[] expressions = {"0 30 2 * * *", "0 0 0 * * *", "0 0 12 * * MON", "0 0 9-17 * * MON-FRI", "15 42 * 4-6 * 6",
+                "0 0 0 1 * *", "0 0 12 28 2 *", "0 0 23 31 * *", "0 0 12 * 1,7 SUN"};
+        Random random = new Random(42);
+        for (String id : TIME_ZONES) {
+            for (String expression : expressions) {
+                CronSequenceGenerator g = new CronSequenceGenerator(expression, TimeZone.getTimeZone(id));
+                assertNextTimesEqualNextLoop(g, randomDate(random));
+            }
+        }
+    }
+
+    private static void assertNextTimesEqualNextLoop(CronSequenceGenerator g, long date) {
+        long[] times = new long[200];
+        g.nextTimes(date, times);
+        long time = date;
+        for (long t : times) {
+            time = g.next(time);
+            assertEquals(g + " from " + date, time, t);
+        }
+    }
+
+    @Test
+    public void checkNextTimesWithEndDate() {
+        CronSequenceGenerator g = new CronSequenceGenerator("0 0 * * * *", TimeZone.getTimeZone("UTC"));
+        long[] times = new long[100];
+        assertEquals(24, g.nextTimes(time("2018-01-01T00:00:00Z"), time("2018-01-02T00:00:00Z"), times));
+        assertEquals(time("2018-01-01T01:00:00Z"), times[0]);
+        assertEquals(time("2018-01-02T00:00:00Z"), times[23]);
+    }
+
+    @Test
+    public void checkCountTimes() {
+        CronSequenceGenerator g = new CronSequenceGenerator("0 0 * * * *", TimeZone.getTimeZone("UTC"));
+        assertEquals(24, g.countTimes(time("2018-01-01T00:00:00Z"), time("2018-01-02T00:00:00Z"), 100));
+        assertEquals(10, g.countTimes(time("2018-01-01T00:00:00Z"), time("2018-01-02T00:00:00Z"), 10));
+        assertEquals(0, g.countTimes(time("2018-01-01T00:00:00Z"), time("2018-01-01T00:30:00Z"), 10));
+        assertEquals(0, g.countTimes(time("2018-01-01T00:00:00Z"), Long.MAX_VALUE, 0));
+    }
+
+    @Test
+    public void checkStream() {
+        CronSequenceGenerator g = new CronSequenceGenerator("*/13 */7 1-3,12 * * MON-FRI", TimeZone.getTimeZone("Europe/Berlin"));
+        long date = time("2018-03-01T00:00:00Z");
+        long endDate = time("2018-04-15T00:00:00Z");
+        long[] times = new long[100_000];
+        int n = g.nextTimes(date, endDate, times);
+        assertTrue(n > 0 && n < times.length);
+        assertArrayEquals(Arrays.copyOf(times, n), g.stream(date, endDate).toArray());
+        assertArrayEquals(Arrays.copyOf(times, n), g.stream(date, endDate).parallel().toArray());
+        assertEquals(0, g.stream(endDate, date).count());
+    }
+
+    @Test
+    public void checkParallelStreamOnIrregularSequences() {
+        CronSequenceGenerator g = new CronSequenceGenerator("0,30 * 2 1 1-6 7", TimeZone.getTimeZone("Europe/Moscow"));
+        assertStreamsEqualNextTimes(g, 674901113000L, 674901113000L + 400 * 24 * 3600_000L);
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            CronSequenceGenerator generator = randomGenerator(random);
+            long date = randomDate(random);
+            try {
+                assertStreamsEqualNextTimes(generator, date, date + (1 + random.nextInt(400)) * 24 * 3600_000L);
+            } catch (IllegalArgumentException e) {
+                // runaway search
+            }
+        }
+    }
+
+    private static void assertStreamsEqualNextTimes(CronSequenceGenerator g, long date, long endDate) {
+        long[] times = new long[10_000];
+        int n = g.nextTimes(date, endDate, times);
+        if (n == times.length) {
+            // too many values for the test
+            return;
+        }
+        long[] expected = Arrays.copyOf(times, n);
+        assertArrayEquals(g + " from " + date, expected, g.stream(date, endDate).toArray());
+        assertArrayEquals(g + " from " + date, expected, g.stream(date, endDate).parallel().toArray());
+    }
+
+    private static final String[] TIME_ZONES = {"UTC", "Europe/Berlin", "Europe/Moscow", "America/New_York",
+            "Australia/Lord_Howe", "Asia/Kathmandu", "America/Sao_Paulo"};
+
+    private static CronSequenceGenerator randomGenerator(Random random) {
+        String expression = randomField(random, 0, 59) + " " + randomField(random, 0, 59) + " " + randomField(random, 0, 23)
+                + " " + randomField(random, 1, 31) + " " + randomField(random, 1, 12) + " " + randomField(random, 0, 7);
+        return new CronSequenceGenerator(expression, TimeZone.getTimeZone(TIME_ZONES[random.nextInt(TIME_ZONES.length)]));
+    }
+
+    private static String randomField(Random random, int min, int max) {
+        int a = min + random.nextInt(max - min + 1);
+        int b = min + random.nextInt(max - min + 1);
+        switch (random.nextInt(5)) {
+            case 0:
+                return "*";
+            case 1:
+                return "*/" + (1 + random.nextInt(Math.min(7, max)));
+            case 2:
+                return Math.min(a, b) + "-" + Math.max(a, b);
+            case 3:
+                return a == b ? String.valueOf(a) : a + "," + b;
+            default:
+                return String.valueOf(a);
+        }
+    }
+
+    private static long randomDate(Random random) {
+        // 1990 - 2030
+        return 631152000000L + (long) (random.nextDouble() * 40 * 365 * 24 * 3600_000L);
+    }
+
+    @Test
+    public void checkPrevious() {
+        CronSequenceGenerator g = new CronSequenceGenerator("*/15 0 9-17 * * MON-FRI", TimeZone.getTimeZone("UTC"));
+        assertEquals(time("2018-01-05T17:00:45Z"), g.previous(time("2018-01-07T12:00:00Z")));
+        assertEquals(time("2018-01-05T17:00:45Z"), g.previous(time("2018-01-05T17:00:45.999Z")));
+        assertEquals(time("2018-01-05T17:00:30Z"), g.previous(time("2018-01-05T17:00:44Z")));
+        assertEquals(time("2016-02-29T00:00:00Z"),
+                new CronSequenceGenerator("0 0 0 29 2 *", TimeZone.getTimeZone("UTC")).previous(time("2018-01-01T00:00:00Z")));
+    }
+
+    @Test
+    public void checkPreviousOnDaylightSavingTimeChange() {
+        CronSequenceGenerator g = new CronSequenceGenerator("0 30 2 * * *", TimeZone.getTimeZone("Europe/Berlin"));
+        // 2:30 does not exist
+        assertEquals(time("2018-03-24T01:30:00Z"), g.previous(time("2018-03-25T12:00:00Z")));
+        // 2:30 is repeated
+        assertEquals(time("2018-10-28T01:30:00Z"), g.previous(time("2018-10-28T12:00:00Z")));
+        assertEquals(time("2018-10-28T00:30:00Z"), g.previous(time("2018-10-28T01:00:00Z")));
+        // the seed offset is not the offset of the later instant
+        CronSequenceGenerator yearly = new CronSequenceGenerator("0 30 2 25 10 *", TimeZone.getTimeZone("Europe/Berlin"));
+        assertEquals(time("2026-10-25T01:30:00Z"), yearly.previous(time("2027-06-01T10:00:00Z")));
+        assertEquals(time("2026-10-25T01:30:00Z"), yearly.previous(time("2027-01-01T00:00:00Z")));
+        assertEquals(time("2032-10-31T01:30:00Z"), g.previous(time("2032-10-31T12:00:00Z")));
+        assertEquals(time("2032-10-31T01:30:00Z"),
+                new CronSequenceGenerator("0 30 2 31 10 *", TimeZone.getTimeZone("Europe/Berlin")).previous(time("2033-05-01T00:00:00Z")));
+    }
+
+    /**
+     * Seeds are up to 300 days after repeated local times: the offset of the seed is often not the offset
+     * of the later instant.
+     */
+    @Test
+    public void checkPreviousOfRepeatedLocalTimes() {
+        Random random = new Random(42);
+        for (String id : new String[]{"Europe/Berlin", "America/New_York", "Africa/Casablanca", "Australia/Lord_Howe"}) {
+            ZoneRules rules = ZoneId.of(id).getRules();
+            TimeZone timeZone = TimeZone.getTimeZone(id);
+            for (ZoneOffsetTransition t = rules.nextTransition(Instant.parse("2000-01-01T00:00:00Z"));
+                 t.getInstant().isBefore(Instant.parse("2036-01-01T00:00:00Z")); t = rules.nextTransition(t.getInstant())) {
+                if (!t.isOverlap()) {
+                    continue;
+                }
+                LocalDateTime local = t.getDateTimeAfter().plusSeconds(random.nextInt((int) t.getDuration().negated().getSeconds()));
+                CronSequenceGenerator g = new CronSequenceGenerator(local.getSecond() + " " + local.getMinute() + " " + local.getHour()
+                        + " " + local.getDayOfMonth() + " " + local.getMonthValue() + " *", timeZone);
+                long later = local.atOffset(t.getOffsetAfter()).toInstant().toEpochMilli();
+                long seed = later + (long) (random.nextDouble() * 300 * 24 * 3600_000L);
+                assertEquals(g + " from " + seed, later, g.previous(seed));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkPreviousRunaway() {
+        new CronSequenceGenerator("0 0 0 30 2 *").previous(System.currentTimeMillis());
+    }
+
+    @Test
+    public void checkMatches() {
+        CronSequenceGenerator g = new CronSequenceGenerator("0 30 2 * * MON-FRI", TimeZone.getTimeZone("Europe/Berlin"));
+        assertTrue(g.matches(time("2018-03-23T01:30:00Z")));
+        assertTrue(g.matches(time("2018-03-23T01:30:00.999Z")));
+        assertFalse(g.matches(time("2018-03-23T01:30:01Z")));
+        assertFalse(g.matches(time("2018-03-24T01:30:00Z")));
+        // both instants of repeated 2:30 match
+        CronSequenceGenerator daily = new CronSequenceGenerator("0 30 2 * * *", TimeZone.getTimeZone("Europe/Berlin"));
+        assertTrue(daily.matches(time("2018-10-28T00:30:00Z")));
+        assertTrue(daily.matches(time("2018-10-28T01:30:00Z")));
+
+        long date = time("2018-03-23T01:30:00Z");
+        CronSequenceGenerator[] generators = {g, new CronSequenceGenerator("0 30 1 * * *", TimeZone.getTimeZone("UTC")),
+                new CronSequenceGenerator("0 30 1 * * *", TimeZone.getTimeZone("Europe/Berlin")), new CronSequenceGenerator("0 * * * * *")};
+        boolean[] result = new boolean[generators.length];
+        assertEquals(3, CronSequenceGenerator.matches(date, generators, result));
+        for (int i = 0; i < generators.length; i++) {
+            assertEquals(generators[i].matches(date), result[i]);
+        }
+    }
+
+    private static long time(String instant) {
+        return Instant.parse(instant).toEpochMilli();
+    }
+}
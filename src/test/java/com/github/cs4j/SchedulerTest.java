@@ -1,8 +1,21 @@
 package com.github.cs4j;
 
+import com.github.cs4j.asset.SampleAsyncService;
+import com.github.cs4j.asset.SampleIoService;
 import com.github.cs4j.asset.SampleService1;
 import com.github.cs4j.asset.SampleService2;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.jetbrains.annotations.NotNull;
@@ -16,6 +29,11 @@ public class SchedulerTest extends Assert {
 
     private static final Object SYNC_OBJECT = new Object();
 
+    /**
+     * 2026-01-01T00:00:00Z.
+     */
+    private static final long START_TIME = 1767225600000L;
+
     @Test
     public void checkSchedulerCheckSingleThread() throws InterruptedException {
         try (final Scheduler scheduler = new Scheduler(Executors.newFixedThreadPool(1), 0, 1, TimeUnit.SECONDS, "T1")) {
@@ -167,4 +185,643 @@ public class SchedulerTest extends Assert {
                     count.get() == nCyclesToCheck || count.get() == nCyclesToCheck - 1);
         }
     }
+
+    @Test
+    public void checkDeadlineModeDoesNotWaitForCheckInterval() throws InterruptedException {
+        final AtomicInteger count = new AtomicInteger();
+        VirtualClock clock = new VirtualClock(START_TIME);
+        try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 0, 1, TimeUnit.MINUTES, "T11", Scheduler.Mode.DEADLINE, 1, clock)) {
+            scheduler.schedule(new Object() {
+                @Scheduled(cron = "* * * * * *")
+                public void foo() {
+                    count.incrementAndGet();
+                }
+            });
+            clock.advance(3_500L, TimeUnit.MILLISECONDS);
+            // the first call and 3 calls 1ms after every second.
+            assertEquals(4, count.get());
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void checkSystemTimeSetBack() throws InterruptedException {
+        for (Scheduler.Mode mode : new Scheduler.Mode[]{Scheduler.Mode.DEADLINE, Scheduler.Mode.TIMING_WHEEL}) {
+            AtomicInteger count = new AtomicInteger();
+            VirtualClock clock = new VirtualClock(START_TIME);
+            try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 0, 1, TimeUnit.MINUTES, "T36", mode, 1, clock)) {
+                scheduler.schedule(() -> {
+                }, "* * * * * *");
+                clock.advance(10_500, TimeUnit.MILLISECONDS);
+                clock.adjustWallClock(-1, TimeUnit.HOURS);
+                // the times of a task scheduled after the change are before the times the queue was turned to.
+                scheduler.schedule(count::incrementAndGet, "* * * * * *");
+                clock.advance(3, TimeUnit.SECONDS);
+                // the first call and 3 calls 1ms after every second: the task is not executed in a loop.
+                assertEquals(mode.name(), 4, count.get());
+            }
+        }
+    }
+
+    @Test
+    public void checkTimingWheelMode() throws InterruptedException {
+        final AtomicInteger count = new AtomicInteger();
+        VirtualClock clock = new VirtualClock(START_TIME);
+        try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 0, 1, TimeUnit.MINUTES, "T12", Scheduler.Mode.TIMING_WHEEL, 1, clock)) {
+            scheduler.schedule(new Object() {
+                @Scheduled(cron = "* * * * * *")
+                public void foo() {
+                    count.incrementAndGet();
+                }
+            });
+            clock.advance(3_500L, TimeUnit.MILLISECONDS);
+            // the first call and 3 calls 1ms after every second.
+            assertEquals(4, count.get());
+        }
+    }
+
+    @Test
+    public void checkTaskExceptionIsReported() throws Exception {
+        try (Scheduler scheduler = new Scheduler(Executors.newFixedThreadPool(1), 0, 1, TimeUnit.MINUTES, "T13")) {
+            final List<Exception> errors = new ArrayList<>();
+            scheduler.setEventLogger(new EventLogger() {
+                @Override
+                public void onError(@NotNull String message, @Nullable Exception e) {
+                    errors.add(e);
+                }
+            });
+            Object service = new Object() {
+                @Scheduled(cron = "0 0 0 1 1 *")
+                public void foo() {
+                    throw new IllegalStateException("foo");
+                }
+            };
+            SchedulerTask task = new SchedulerTask(scheduler, service, service.getClass().getMethod("foo"), new CronSequenceGenerator("0 0 0 1 1 *"));
+            task.run();
+            assertEquals(1, errors.size());
+            assertTrue(errors.get(0) instanceof InvocationTargetException);
+            assertTrue(errors.get(0).getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void checkTaskIsRetriedAfterFailedStart() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(START_TIME);
+        try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 0, 1, TimeUnit.MINUTES, "T34", Scheduler.Mode.DEADLINE, 1, clock)) {
+            AtomicInteger beforeExecuteCalls = new AtomicInteger();
+            List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+            scheduler.setEventLogger(new EventLogger() {
+                @Override
+                public void onBeforeExecute(@NotNull SchedulerTask task) {
+                    if (beforeExecuteCalls.incrementAndGet() == 1) {
+                        throw new IllegalStateException("logger");
+                    }
+                }
+
+                @Override
+                public void onError(@NotNull String message, @Nullable Exception e) {
+                    errors.add(e);
+                }
+            });
+            AtomicInteger count = new AtomicInteger();
+            SchedulerTask task = scheduler.schedule(count::incrementAndGet, "* * * * * *");
+            clock.advance(0, TimeUnit.SECONDS);
+            assertEquals(0, count.get());
+            assertEquals(1, errors.size());
+            assertTrue(errors.get(0) instanceof IllegalStateException);
+
+            // the task is retried on the next check: it happens after the check interval.
+            clock.advance(1, TimeUnit.MINUTES);
+            assertEquals(1, count.get());
+            assertFalse(task.isExecuting());
+            assertEquals(Collections.singletonList(task), scheduler.getTasks());
+        }
+    }
+
+    @Test
+    public void checkClassIsScannedOnce() {
+        try (Scheduler scheduler = new Scheduler(Executors.newFixedThreadPool(1), 0, 1, TimeUnit.MINUTES, "T14")) {
+            List<ScheduledMethod> methods = ScheduledMethod.forClass(SampleService1.class);
+            assertEquals(1, methods.size());
+            assertSame(methods, ScheduledMethod.forClass(SampleService1.class));
+            for (int i = 0; i < 100; i++) {
+                scheduler.schedule(new SampleService1(s -> {
+                }));
+            }
+            assertEquals(100, scheduler.getTasks().size());
+            assertSame(scheduler.getTasks().get(0).sequenceGenerator, scheduler.getTasks().get(99).sequenceGenerator);
+        }
+    }
+
+    @Test
+    public void checkScheduleRunnableAndCallable() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(START_TIME);
+        try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 0, 1, TimeUnit.MINUTES, "T16", Scheduler.Mode.DEADLINE, 1, clock)) {
+            AtomicInteger count = new AtomicInteger();
+            SchedulerTask runnableTask = scheduler.schedule(count::incrementAndGet, "* * * * * *");
+            SchedulerTask callableTask = scheduler.schedule(() -> {
+                count.incrementAndGet();
+                return "ok";
+            }, new CronSequenceGenerator("* * * * * *"));
+            assertNull(runnableTask.method);
+            assertEquals(2, scheduler.getTasks().size());
+            clock.advance(0, TimeUnit.SECONDS);
+            assertEquals(2, count.get());
+
+            try {
+                scheduler.scheduleAll(Collections.singletonList(callableTask));
+                fail();
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void checkScheduleAll() {
+        try (Scheduler scheduler = new Scheduler(Executors.newFixedThreadPool(1), 0, 1, TimeUnit.MINUTES, "T17");
+             Scheduler other = new Scheduler(Executors.newFixedThreadPool(1), 0, 1, TimeUnit.MINUTES, "T18")) {
+            CronSequenceGenerator generator = new CronSequenceGenerator("0 0 0 * * *");
+            List<SchedulerTask> batch = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                batch.add(new SchedulerTask(scheduler, i, () -> null, generator));
+            }
+            scheduler.scheduleAll(batch);
+            assertEquals(1000, scheduler.getTasks().size());
+
+            try {
+                other.scheduleAll(Collections.singletonList(new SchedulerTask(scheduler, 0, () -> null, generator)));
+                fail();
+            } catch (IllegalArgumentException ignored) {
+            }
+            assertTrue(other.getTasks().isEmpty());
+        }
+    }
+
+    @Test
+    public void checkCancelAndUnschedule() {
+        for (Scheduler.Mode mode : Scheduler.Mode.values()) {
+            try (Scheduler scheduler = new Scheduler(Executors.newFixedThreadPool(1), 0, 1, TimeUnit.MINUTES, "T19", mode)) {
+                SampleService1 service1 = new SampleService1(s -> {
+                });
+                SampleService1 service2 = new SampleService1(s -> {
+                });
+                List<SchedulerTask> tasks1 = scheduler.schedule(service1);
+                scheduler.schedule(service2);
+                SchedulerTask runnableTask = scheduler.schedule(() -> {
+                }, "0 0 0 * * *");
+                assertEquals(1, tasks1.size());
+                assertEquals(3, scheduler.getTasks().size());
+
+                assertTrue(runnableTask.cancel());
+                assertFalse(runnableTask.cancel());
+                assertTrue(runnableTask.isCancelled());
+                assertEquals(2, scheduler.getTasks().size());
+
+                assertEquals(1, scheduler.unschedule(service1));
+                assertEquals(0, scheduler.unschedule(service1));
+                assertTrue(tasks1.get(0).isCancelled());
+                assertFalse(tasks1.get(0).cancel());
+                assertEquals(1, scheduler.getTasks().size());
+                assertSame(service2, scheduler.getTasks().get(0).instance);
+            }
+        }
+    }
+
+    @Test
+    public void checkCancelledTaskIsNotExecutedAgain() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(START_TIME);
+        try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 0, 1, TimeUnit.MINUTES, "T20", Scheduler.Mode.DEADLINE, 1, clock)) {
+            AtomicInteger counter = new AtomicInteger();
+            List<Boolean> cancelled = new ArrayList<>();
+            SchedulerTask[] task = new SchedulerTask[1];
+            task[0] = new SchedulerTask(scheduler, counter, () -> {
+                counter.incrementAndGet();
+                // cancel while running
+                cancelled.add(task[0].cancel());
+                return null;
+            }, new CronSequenceGenerator("* * * * * *"));
+            scheduler.scheduleAll(Collections.singletonList(task[0]));
+            clock.advance(3, TimeUnit.SECONDS);
+            assertEquals(Collections.singletonList(true), cancelled);
+            assertEquals(1, counter.get());
+            assertTrue(scheduler.getTasks().isEmpty());
+        }
+    }
+
+    @Test
+    public void checkConcurrentRegistration() throws Exception {
+        try (Scheduler scheduler = new Scheduler(Executors.newFixedThreadPool(2), 0, 10, TimeUnit.MILLISECONDS, "T21", Scheduler.Mode.DEADLINE)) {
+            int nThreads = 4;
+            int nTasks = 5_000;
+            CronSequenceGenerator generator = new CronSequenceGenerator("* * * * * *");
+            ExecutorService executor = Executors.newFixedThreadPool(nThreads + 1);
+            AtomicInteger reads = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < nThreads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < nTasks; j++) {
+                        SchedulerTask task = scheduler.schedule(() -> {
+                        }, generator);
+                        if (j % 2 == 0) {
+                            assertTrue(task.cancel());
+                        }
+                    }
+                }));
+            }
+            Future<?> reader = executor.submit(() -> {
+                while (!futures.stream().allMatch(Future::isDone)) {
+                    for (SchedulerTask task : scheduler.getTasks()) {
+                        assertNotNull(task.sequenceGenerator);
+                    }
+                    reads.incrementAndGet();
+                }
+            });
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            reader.get();
+            executor.shutdown();
+            assertTrue(reads.get() > 0);
+            assertEquals(nThreads * nTasks / 2, scheduler.getTasks().size());
+        }
+    }
+
+    @Test
+    public void checkCancelDuringRegistration() throws Exception {
+        try (Scheduler scheduler = new Scheduler(Executors.newFixedThreadPool(1), 0, 1, TimeUnit.MINUTES, "T32", Scheduler.Mode.DEADLINE, 4)) {
+            CronSequenceGenerator generator = new CronSequenceGenerator("0 0 0 * * *");
+            List<SchedulerTask> tasks = new ArrayList<>();
+            for (int i = 0; i < 500_000; i++) {
+                tasks.add(new SchedulerTask(scheduler, i, () -> null, generator));
+            }
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            // cancels every task as soon as it is scheduled: often before its registration is finished.
+            Future<?> canceller = executor.submit(() -> {
+                for (SchedulerTask task : tasks) {
+                    while (!task.cancel()) {
+                        Thread.yield();
+                    }
+                }
+            });
+            for (SchedulerTask task : tasks) {
+                scheduler.scheduleAll(Collections.singletonList(task));
+            }
+            canceller.get(30, TimeUnit.SECONDS);
+            executor.shutdown();
+            assertTrue(scheduler.getTasks().isEmpty());
+            for (SchedulerTask task : tasks) {
+                assertEquals(0, scheduler.unschedule(task.instance));
+            }
+        }
+    }
+
+    @Test
+    public void checkShardedScheduler() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(START_TIME);
+        try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 0, 1, TimeUnit.SECONDS, "T22", Scheduler.Mode.DEADLINE, 4, clock)) {
+            List<Scheduler.SchedulerThread> shards = scheduler.getShards();
+            assertEquals(4, shards.size());
+            assertSame(scheduler.schedulerThread, shards.get(0));
+            assertEquals("T22-3", shards.get(3).getName());
+
+            int nTasks = 400;
+            AtomicInteger count = new AtomicInteger();
+            CronSequenceGenerator generator = new CronSequenceGenerator("* * * * * *");
+            for (int i = 0; i < nTasks; i++) {
+                scheduler.schedule(count::incrementAndGet, generator);
+            }
+            // the first call and the call 1ms after the next second.
+            clock.advance(1_500, TimeUnit.MILLISECONDS);
+            assertEquals(2 * nTasks, count.get());
+            long dispatched = 0;
+            for (Scheduler.SchedulerThread shard : shards) {
+                assertTrue(shard.getDispatchedCount() > 0);
+                assertTrue(shard.getMaxLagMillis() >= shard.getLastLagMillis());
+                dispatched += shard.getDispatchedCount();
+            }
+            assertEquals(2 * nTasks, dispatched);
+        }
+    }
+
+    @Test
+    public void checkInterruptedSchedulerThreadKeepsWorking() throws InterruptedException {
+        for (Scheduler.Mode mode : Scheduler.Mode.values()) {
+            try (Scheduler scheduler = new Scheduler(Executors.newFixedThreadPool(1), 0, 100, TimeUnit.MILLISECONDS, "T35", mode)) {
+                Scheduler.SchedulerThread thread = scheduler.schedulerThread;
+                thread.interrupt();
+                // an interrupted thread that does not clear the flag never parks and takes a whole core.
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+                while (thread.isInterrupted() && System.nanoTime() < deadline) {
+                    Thread.yield();
+                }
+                assertFalse(mode.name(), thread.isInterrupted());
+
+                CountDownLatch latch = new CountDownLatch(1);
+                scheduler.schedule(latch::countDown, "* * * * * *");
+                assertTrue(mode.name(), latch.await(3, TimeUnit.SECONDS));
+
+                scheduler.shutdown();
+                thread.interrupt();
+                thread.join(3_000);
+                assertFalse(mode.name(), thread.isAlive());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkZeroShardsAreRejected() {
+        new Scheduler(Executors.newFixedThreadPool(1), 0, 1, TimeUnit.SECONDS, "T23", Scheduler.Mode.DEADLINE, 0);
+    }
+
+    @Test
+    public void checkAsyncTaskIsExecutingUntilCompleted() throws Exception {
+        VirtualClock clock = new VirtualClock(START_TIME);
+        try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 0, 1, TimeUnit.MINUTES, "T24", Scheduler.Mode.DEADLINE, 1, clock)) {
+            SampleAsyncService service = new SampleAsyncService();
+            SchedulerTask task = scheduler.schedule(service).get(0);
+            // the executor thread is not blocked by the running task: the clock waits for it.
+            clock.advance(0, TimeUnit.SECONDS);
+            CompletableFuture<Void> future = service.futures.poll();
+            assertNotNull(future);
+            clock.advance(1_500, TimeUnit.MILLISECONDS);
+            assertTrue(task.isExecuting());
+            assertTrue(service.futures.isEmpty());
+
+            future.complete(null);
+            assertFalse(task.isExecuting());
+            clock.advance(1, TimeUnit.SECONDS);
+            assertEquals(1, service.futures.size());
+        }
+    }
+
+    @Test
+    public void checkAsyncTaskExceptionIsReported() throws Exception {
+        try (Scheduler scheduler = new Scheduler(Executors.newFixedThreadPool(1), 0, 1, TimeUnit.MINUTES, "T25")) {
+            final List<Exception> errors = new ArrayList<>();
+            scheduler.setEventLogger(new EventLogger() {
+                @Override
+                public void onError(@NotNull String message, @Nullable Exception e) {
+                    errors.add(e);
+                }
+            });
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            SchedulerTask task = new SchedulerTask(scheduler, future, () -> future.thenRun(() -> {
+            }), new CronSequenceGenerator("0 0 0 1 1 *"));
+            task.run();
+            assertTrue(errors.isEmpty());
+            future.completeExceptionally(new IllegalStateException("foo"));
+            assertEquals(1, errors.size());
+            assertTrue(errors.get(0) instanceof InvocationTargetException);
+            assertTrue(errors.get(0).getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void checkExecutorGroups() throws Exception {
+        try (Scheduler scheduler = new Scheduler(Executors.newFixedThreadPool(1), 0, 100, TimeUnit.MILLISECONDS, "T26", Scheduler.Mode.DEADLINE)) {
+            SampleIoService service = new SampleIoService();
+            try {
+                scheduler.schedule(service);
+                fail();
+            } catch (IllegalArgumentException ignored) {
+            }
+            ExecutorGroup io = scheduler.registerExecutor("io", Executors.newSingleThreadExecutor(r -> new Thread(r, "io-thread")));
+            try {
+                scheduler.registerExecutor("io", Executors.newSingleThreadExecutor());
+                fail();
+            } catch (IllegalArgumentException ignored) {
+            }
+            assertEquals(2, scheduler.getExecutorGroups().size());
+
+            scheduler.schedule(service);
+            LinkedBlockingQueue<String> reflectedThreadNames = new LinkedBlockingQueue<>();
+            scheduler.schedule(new Object() {
+                @Scheduled(cron = "* * * * * *", executor = "io")
+                public void tick() {
+                    reflectedThreadNames.add(Thread.currentThread().getName());
+                }
+            });
+            assertEquals("io-thread", service.threadNames.poll(3, TimeUnit.SECONDS));
+            assertEquals("io-thread", reflectedThreadNames.poll(3, TimeUnit.SECONDS));
+            assertTrue(io.getSubmittedCount() >= 2);
+        }
+    }
+
+    @Test
+    public void checkExecutorSaturationIsReported() throws Exception {
+        VirtualClock clock = new VirtualClock(START_TIME);
+        try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 0, 1, TimeUnit.MINUTES, "T27", Scheduler.Mode.DEADLINE, 1, clock)) {
+            List<ExecutorGroup> saturated = Collections.synchronizedList(new ArrayList<>());
+            scheduler.setEventLogger(new EventLogger() {
+                @Override
+                public void onExecutorSaturated(@NotNull ExecutorGroup group, @NotNull SchedulerTask task) {
+                    saturated.add(group);
+                }
+            });
+            ExecutorGroup slow = scheduler.registerExecutor("slow", Executors.newFixedThreadPool(1));
+            CountDownLatch release = new CountDownLatch(1);
+            CronSequenceGenerator generator = new CronSequenceGenerator("* * * * * *");
+            List<SchedulerTask> slowTasks = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                slowTasks.add(new SchedulerTask(scheduler, i, () -> release.await(5, TimeUnit.SECONDS), generator, "slow"));
+            }
+            scheduler.scheduleAll(slowTasks);
+            AtomicInteger fast = new AtomicInteger();
+            scheduler.schedule(fast::incrementAndGet, generator);
+            clock.advance(1_500, TimeUnit.MILLISECONDS);
+            // the default group is not blocked by the slow group
+            assertEquals(2, fast.get());
+            release.countDown();
+            // the second and the third slow task find the only thread taken. Executing tasks are not submitted again.
+            assertEquals(2, slow.getSaturatedCount());
+            assertEquals(Arrays.asList(slow, slow), saturated);
+        }
+    }
+
+    @Test
+    public void checkFailedSaturationReportDoesNotQueueRunningTask() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(START_TIME);
+        try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 0, 1, TimeUnit.MINUTES, "T37", Scheduler.Mode.DEADLINE, 1, clock)) {
+            List<Exception> errors = Collections.synchronizedList(new ArrayList<>());
+            scheduler.setEventLogger(new EventLogger() {
+                @Override
+                public void onExecutorSaturated(@NotNull ExecutorGroup group, @NotNull SchedulerTask task) {
+                    throw new IllegalStateException("logger");
+                }
+
+                @Override
+                public void onError(@NotNull String message, @Nullable Exception e) {
+                    errors.add(e);
+                }
+            });
+            ExecutorService executor = Executors.newFixedThreadPool(1);
+            ExecutorGroup pool = scheduler.registerExecutor("pool", executor);
+            CountDownLatch release = new CountDownLatch(1);
+            CronSequenceGenerator generator = new CronSequenceGenerator("0 0 * * * *");
+            List<SchedulerTask> tasks = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                tasks.add(new SchedulerTask(scheduler, i, () -> release.await(5, TimeUnit.SECONDS), generator, "pool"));
+            }
+            scheduler.scheduleAll(tasks);
+            clock.advance(1, TimeUnit.SECONDS);
+            // the second task is saturated and running: it is not started again while it is waiting for the thread.
+            assertEquals(2, pool.getSubmittedCount());
+            assertEquals(1, pool.getSaturatedCount());
+            assertEquals(1, errors.size());
+            assertTrue(tasks.get(1).isExecuting());
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void checkFailedSubmitReleasesExecutor() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(START_TIME);
+        try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 0, 1, TimeUnit.MINUTES, "T38", Scheduler.Mode.DEADLINE, 1, clock)) {
+            scheduler.setEventLogger(new EventLogger() {
+                @Override
+                public void onError(@NotNull String message, @Nullable Exception e) {
+                }
+            });
+            AtomicInteger submits = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>()) {
+                @Override
+                public void execute(@NotNull Runnable command) {
+                    if (submits.incrementAndGet() == 1) {
+                        throw new IllegalStateException("executor");
+                    }
+                    super.execute(command);
+                }
+            };
+            ExecutorGroup pool = scheduler.registerExecutor("pool", executor);
+            SchedulerTask task = new SchedulerTask(scheduler, this, () -> null, new CronSequenceGenerator("0 0 * * * *"), "pool");
+            scheduler.scheduleAll(Collections.singletonList(task));
+            clock.advance(0, TimeUnit.SECONDS);
+            assertEquals(0, pool.getSubmittedCount());
+            // the task is retried on the next check: the failed submit does not take the only thread.
+            clock.advance(1, TimeUnit.MINUTES);
+            assertEquals(1, pool.getSubmittedCount());
+            assertEquals(0, pool.getSaturatedCount());
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void checkIdleExecutorIsNotSaturated() throws InterruptedException {
+        // tasks are started 1ms after every second: the clock stops at these times.
+        VirtualClock clock = new VirtualClock(START_TIME + 1);
+        try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 0, 1, TimeUnit.MINUTES, "T31", Scheduler.Mode.DEADLINE, 1, clock)) {
+            ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(4);
+            ExecutorGroup pool = scheduler.registerExecutor("pool", executor);
+            CronSequenceGenerator generator = new CronSequenceGenerator("* * * * * *");
+            List<SchedulerTask> tasks = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                tasks.add(new SchedulerTask(scheduler, i, () -> null, generator, "pool"));
+            }
+            scheduler.scheduleAll(tasks);
+            for (int i = 0; i <= 300; i++) {
+                clock.advance(i == 0 ? 0 : 1, TimeUnit.SECONDS);
+                // 3 tasks never take all 4 threads: wait until they are finished and scheduled again.
+                while (executor.getCompletedTaskCount() < pool.getSubmittedCount()) {
+                    Thread.yield();
+                }
+            }
+            assertEquals(3 * 301, pool.getSubmittedCount());
+            assertEquals(0, pool.getSaturatedCount());
+        }
+    }
+
+    @Test
+    public void checkVirtualClockReplaysMonths() throws InterruptedException {
+        for (Scheduler.Mode mode : new Scheduler.Mode[]{Scheduler.Mode.DEADLINE, Scheduler.Mode.TIMING_WHEEL}) {
+            VirtualClock clock = new VirtualClock(START_TIME);
+            List<Long> times = Collections.synchronizedList(new ArrayList<>());
+            try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 0, 1, TimeUnit.HOURS, "T28", mode, 2, clock)) {
+                scheduler.schedule(() -> times.add(clock.currentTimeMillis()), "0 */15 * * * *");
+                scheduler.schedule(() -> times.add(-clock.currentTimeMillis()), "0 0 12 * * MON");
+                clock.advance(90, TimeUnit.DAYS);
+                assertEquals(START_TIME + TimeUnit.DAYS.toMillis(90), clock.currentTimeMillis());
+            }
+            long quarter = TimeUnit.MINUTES.toMillis(15);
+            List<Long> expected = new ArrayList<>();
+            for (long t = START_TIME; t < START_TIME + TimeUnit.DAYS.toMillis(90); t += quarter) {
+                // tasks are started 1ms after the executing time. The first run is not delayed.
+                expected.add(t == START_TIME ? t : t + 1);
+            }
+            List<Long> mondays = new ArrayList<>();
+            // 2026-01-05 is the first Monday.
+            for (long t = START_TIME + TimeUnit.HOURS.toMillis(4 * 24 + 12); t < START_TIME + TimeUnit.DAYS.toMillis(90); t += TimeUnit.DAYS.toMillis(7)) {
+                mondays.add(t + 1);
+            }
+            List<Long> actualQuarters = new ArrayList<>();
+            List<Long> actualMondays = new ArrayList<>();
+            for (long t : times) {
+                if (t >= 0) {
+                    actualQuarters.add(t);
+                } else if (t != -START_TIME) {
+                    actualMondays.add(-t);
+                }
+            }
+            assertEquals(mode.name(), expected, actualQuarters);
+            assertEquals(mode.name(), mondays, actualMondays);
+        }
+    }
+
+    @Test
+    public void checkTaskMetrics() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(START_TIME);
+        ExecutorService closedExecutor = TaskExecutors.newDirectExecutor();
+        closedExecutor.shutdown();
+        AtomicInteger count = new AtomicInteger();
+        // checks at 1s, 6s, 11s, ...: every check but the first one starts the task 4 seconds late and skips 4 executing times.
+        try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 1, 5, TimeUnit.SECONDS, "T29", Scheduler.Mode.POLLING, 1, clock)) {
+            scheduler.setEventLogger(new EventLogger() {
+                @Override
+                public void onError(@NotNull String message, @Nullable Exception e) {
+                }
+            });
+            scheduler.registerExecutor("closed", closedExecutor);
+            SchedulerTask task = scheduler.schedule(() -> {
+                if (count.incrementAndGet() % 2 == 0) {
+                    throw new IllegalStateException();
+                }
+                return null;
+            }, "* * * * * *");
+            SchedulerTask rejectedTask = new SchedulerTask(scheduler, this, () -> null, task.sequenceGenerator, "closed");
+            scheduler.scheduleAll(Collections.singletonList(rejectedTask));
+            clock.advance(1, TimeUnit.MINUTES);
+
+            TaskMetrics metrics = task.getMetrics();
+            assertEquals(12, metrics.getRunCount());
+            assertEquals(6, metrics.getFailureCount());
+            assertEquals(11 * 4, metrics.getSkippedCount());
+            assertEquals(0, metrics.getRejectedCount());
+            assertEquals(4000, metrics.getLastLagMillis());
+            assertEquals(4000, metrics.getMaxLagMillis());
+            // virtual time does not move while a task is executing.
+            assertEquals(12, metrics.getDurationHistogram()[0]);
+            assertEquals(1, metrics.getDurationPercentileMicros(99));
+
+            TaskMetrics rejectedMetrics = rejectedTask.getMetrics();
+            assertEquals(0, rejectedMetrics.getRunCount());
+            assertEquals(12, rejectedMetrics.getRejectedCount());
+        }
+    }
+
+    @Test
+    public void checkSkippedCountIsBounded() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(START_TIME);
+        // checks at 1s, 1h 1s and 2h 1s: the late checks skip 3599 executing times each.
+        try (Scheduler scheduler = new Scheduler(TaskExecutors.newDirectExecutor(), 1, 3600, TimeUnit.SECONDS, "T33", Scheduler.Mode.POLLING, 1, clock)) {
+            SchedulerTask task = scheduler.schedule(() -> null, "* * * * * *");
+            clock.advance(2, TimeUnit.HOURS);
+            clock.advance(1, TimeUnit.SECONDS);
+
+            TaskMetrics metrics = task.getMetrics();
+            assertEquals(3, metrics.getRunCount());
+            assertEquals(2 * SchedulerTask.MAX_COUNTED_SKIPS, metrics.getSkippedCount());
+            assertEquals(3599_000, metrics.getLastLagMillis());
+        }
+    }
 }
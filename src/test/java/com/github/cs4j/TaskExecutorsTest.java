@@ -0,0 +1,53 @@
+package com.github.cs4j;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TaskExecutorsTest extends Assert {
+
+    @Test
+    public void checkVirtualThreadSupportMatchesJavaVersion() {
+        String version = System.getProperty("java.specification.version");
+        boolean expected = !version.startsWith("1.") && Integer.parseInt(version) >= 21;
+        assertEquals(expected, TaskExecutors.isVirtualThreadSupported());
+        ExecutorService executor = TaskExecutors.newVirtualThreadPerTaskExecutor();
+        assertEquals(expected, executor != null);
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Tasks run on virtual threads on JDK 21+ and on the threads of the fallback executor before.
+     */
+    @Test
+    public void checkSchedulerRunsTasksWithFallback() throws Exception {
+        AtomicBoolean fallbackUsed = new AtomicBoolean();
+        ExecutorService executor = TaskExecutors.newVirtualThreadPerTaskExecutor(() -> {
+            fallbackUsed.set(true);
+            return Executors.newFixedThreadPool(1, r -> new Thread(r, "fallback"));
+        });
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        try (Scheduler scheduler = new Scheduler(executor, 0, 100, TimeUnit.MILLISECONDS, "TE", Scheduler.Mode.DEADLINE)) {
+            CountDownLatch latch = new CountDownLatch(2);
+            scheduler.schedule(() -> {
+                thread.set(Thread.currentThread());
+                latch.countDown();
+            }, "* * * * * *");
+            assertTrue(latch.await(3, TimeUnit.SECONDS));
+        }
+        boolean virtual = TaskExecutors.isVirtualThreadSupported();
+        assertEquals(!virtual, fallbackUsed.get());
+        if (virtual) {
+            assertEquals(Boolean.TRUE, Thread.class.getMethod("isVirtual").invoke(thread.get()));
+        } else {
+            assertEquals("fallback", thread.get().getName());
+        }
+    }
+}
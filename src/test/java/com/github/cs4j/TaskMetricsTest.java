@@ -0,0 +1,49 @@
+package com.github.cs4j;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TaskMetricsTest extends Assert {
+
+    @Test
+    public void checkDurationBuckets() {
+        assertEquals(0, TaskMetrics.bucketIndex(0));
+        assertEquals(0, TaskMetrics.bucketIndex(999));
+        assertEquals(1, TaskMetrics.bucketIndex(1_000));
+        assertEquals(2, TaskMetrics.bucketIndex(2_000));
+        assertEquals(2, TaskMetrics.bucketIndex(3_999));
+        assertEquals(10, TaskMetrics.bucketIndex(TimeUnit.MILLISECONDS.toNanos(1)));
+        assertEquals(TaskMetrics.BUCKET_COUNT - 1, TaskMetrics.bucketIndex(TimeUnit.DAYS.toNanos(1)));
+        assertEquals(TaskMetrics.BUCKET_COUNT - 1, TaskMetrics.bucketIndex(Long.MAX_VALUE));
+        for (int i = 0; i < TaskMetrics.BUCKET_COUNT - 1; i++) {
+            long upperBound = TaskMetrics.getBucketUpperBoundMicros(i);
+            assertEquals(i, TaskMetrics.bucketIndex(upperBound * 1000 - 1));
+            assertEquals(i + 1, TaskMetrics.bucketIndex(upperBound * 1000));
+        }
+    }
+
+    @Test
+    public void checkDurationPercentiles() {
+        TaskMetrics metrics = new TaskMetrics();
+        assertEquals(0, metrics.getDurationPercentileMicros(50));
+        assertArrayEquals(new long[TaskMetrics.BUCKET_COUNT], metrics.getDurationHistogram());
+        for (int i = 0; i < 90; i++) {
+            metrics.onFinished(TimeUnit.MICROSECONDS.toNanos(100), false);
+        }
+        for (int i = 0; i < 10; i++) {
+            metrics.onFinished(TimeUnit.MILLISECONDS.toNanos(100), true);
+        }
+        assertEquals(100, metrics.getRunCount());
+        assertEquals(10, metrics.getFailureCount());
+        assertEquals(128, metrics.getDurationPercentileMicros(50));
+        assertEquals(128, metrics.getDurationPercentileMicros(90));
+        assertEquals(131072, metrics.getDurationPercentileMicros(99));
+        assertEquals((90 * 100_000L + 10 * 100_000_000L) / 100, metrics.getAverageDurationNanos());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkIllegalPercentileIsRejected() {
+        new TaskMetrics().getDurationPercentileMicros(101);
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.cs4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TimingWheelTaskQueueTest extends Assert {
+
+    private static Scheduler scheduler;
+
+    @BeforeClass
+    public static void setUp() {
+        scheduler = new Scheduler(Executors.newFixedThreadPool(1), 0, 1, TimeUnit.SECONDS, "TW");
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        scheduler.shutdown();
+    }
+
+    private static SchedulerTask newTask(long nextExecutingTime) throws NoSuchMethodException {
+        SchedulerTask task = new SchedulerTask(scheduler, new Object(), Object.class.getMethod("toString"), new CronSequenceGenerator("* * * * * *"));
+        task.nextExecutingTime = nextExecutingTime;
+        return task;
+    }
+
+    @Test
+    public void checkTasksAreDueInTheirSecond() throws NoSuchMethodException {
+        long t0 = 1_500_000_000_000L;
+        TimingWheelTaskQueue queue = new TimingWheelTaskQueue(t0);
+        SchedulerTask past = newTask(0);
+        SchedulerTask nextSecond = newTask(t0 + 1000);
+        SchedulerTask nextHour = newTask(t0 + 3_600_000);
+        SchedulerTask nextWeek = newTask(t0 + 7 * 86_400_000L);
+        queue.add(nextWeek);
+        queue.add(nextHour);
+        queue.add(nextSecond);
+        queue.add(past);
+        assertEquals(4, queue.size());
+
+        assertSame(past, queue.pollDue(t0));
+        assertNull(queue.pollDue(t0));
+        assertEquals(t0 + 1000, queue.nextTime());
+        assertNull(queue.pollDue(t0 + 1000));
+        assertSame(nextSecond, queue.pollDue(t0 + 1001));
+        assertNull(queue.pollDue(t0 + 3_600_000));
+        assertSame(nextHour, queue.pollDue(t0 + 3_600_001));
+        assertSame(nextWeek, queue.pollDue(t0 + 8 * 86_400_000L));
+        assertEquals(0, queue.size());
+        assertEquals(Long.MAX_VALUE, queue.nextTime());
+    }
+
+    @Test
+    public void checkTimeSetBack() throws NoSuchMethodException {
+        long t0 = 1_500_000_000_000L;
+        TimingWheelTaskQueue queue = new TimingWheelTaskQueue(t0);
+        assertNull(queue.pollDue(t0 + 10_500));
+        // the time is set back by an hour: the task is before the wheel position but not due yet.
+        long t1 = t0 - 3_600_000;
+        SchedulerTask task = newTask(t1 + 1000);
+        queue.add(task);
+        assertNull(queue.pollDue(t1));
+        assertEquals(t1 + 1000, queue.nextTime());
+        assertSame(task, queue.pollDue(t1 + 1001));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void checkWheelMatchesHeap() throws NoSuchMethodException {
+        Random random = new Random(42);
+        long now = 1_500_000_000_000L + random.nextInt(1000);
+        TimingWheelTaskQueue wheel = new TimingWheelTaskQueue(now);
+        HeapTaskQueue heap = new HeapTaskQueue();
+        for (int step = 0; step < 3_000; step++) {
+            for (int i = random.nextInt(5); --i >= 0; ) {
+                long delaySeconds = random.nextInt(4) == 0 ? random.nextInt(3 * 86400) : random.nextInt(120);
+                SchedulerTask task = newTask((now / 1000 + delaySeconds) * 1000);
+                wheel.add(task);
+                heap.add(task);
+            }
+            if (heap.size() > 0) {
+                assertTrue(wheel.nextTime() <= heap.nextTime());
+            }
+            now += random.nextInt(3) == 0 ? random.nextInt(7_200_000) : random.nextInt(3_000);
+
+            Set<SchedulerTask> expected = new HashSet<>();
+            for (SchedulerTask t; (t = heap.pollDue(now)) != null; ) {
+                expected.add(t);
+            }
+            List<SchedulerTask> actual = new ArrayList<>();
+            for (SchedulerTask t; (t = wheel.pollDue(now)) != null; ) {
+                actual.add(t);
+            }
+            assertEquals(expected.size(), actual.size());
+            assertEquals(expected, new HashSet<>(actual));
+            assertEquals(heap.size(), wheel.size());
+        }
+    }
+
+    @Test
+    public void checkRemove() throws NoSuchMethodException {
+        long t0 = 1_500_000_000_000L;
+        for (TaskQueue queue : new TaskQueue[]{new TimingWheelTaskQueue(t0), new HeapTaskQueue()}) {
+            Random random = new Random(42);
+            List<SchedulerTask> tasks = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                SchedulerTask task = newTask(t0 + random.nextInt(3 * 86400) * 1000L);
+                tasks.add(task);
+                queue.add(task);
+            }
+            Set<SchedulerTask> expected = new HashSet<>();
+            for (SchedulerTask task : tasks) {
+                if (random.nextBoolean()) {
+                    assertTrue(queue.remove(task));
+                    assertFalse(queue.remove(task));
+                } else {
+                    expected.add(task);
+                }
+            }
+            assertEquals(expected.size(), queue.size());
+
+            Set<SchedulerTask> actual = new HashSet<>();
+            long lastTime = t0;
+            for (long now = t0; now < t0 + 4 * 86_400_000L; now += 60_000) {
+                for (SchedulerTask t; (t = queue.pollDue(now)) != null; ) {
+                    assertTrue(t.nextExecutingTime < now);
+                    assertTrue(t.nextExecutingTime >= lastTime - 60_000);
+                    lastTime = Math.max(lastTime, t.nextExecutingTime);
+                    actual.add(t);
+                }
+            }
+            assertEquals(expected, actual);
+            assertEquals(0, queue.size());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.cs4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class VirtualClockTest extends Assert {
+
+    @Test
+    public void checkParkedThreadsAreWokenUpInOrder() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(1000);
+        List<Long> wakeUps = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (long pause : new long[]{300, 100, 200}) {
+            Thread thread = new Thread(() -> {
+                long deadline = clock.nanoTime() + TimeUnit.MILLISECONDS.toNanos(pause);
+                while (deadline - clock.nanoTime() > 0) {
+                    clock.parkUntil(this, deadline);
+                }
+                wakeUps.add(clock.currentTimeMillis());
+                // stay registered until the clock is advanced again.
+                clock.parkUntil(this, clock.nanoTime() + TimeUnit.DAYS.toNanos(1));
+            });
+            clock.register(thread);
+            thread.start();
+            threads.add(thread);
+        }
+        clock.advance(250, TimeUnit.MILLISECONDS);
+        assertEquals(1250, clock.currentTimeMillis());
+        assertEquals(Arrays.asList(1100L, 1200L), wakeUps);
+        clock.advance(2, TimeUnit.DAYS);
+        assertEquals(Arrays.asList(1100L, 1200L, 1300L), wakeUps);
+        for (Thread thread : threads) {
+            thread.join(1000);
+            assertFalse(thread.isAlive());
+        }
+    }
+
+    @Test
+    public void checkUnparkWakesUpThread() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(0);
+        AtomicBoolean wakeUpRequested = new AtomicBoolean();
+        Thread thread = new Thread(() -> {
+            long deadline = TimeUnit.HOURS.toNanos(1);
+            while (!wakeUpRequested.get() && deadline - clock.nanoTime() > 0) {
+                clock.parkUntil(this, deadline);
+            }
+        });
+        clock.register(thread);
+        thread.start();
+        clock.advance(1, TimeUnit.MINUTES);
+        assertTrue(thread.isAlive());
+        wakeUpRequested.set(true);
+        clock.unpark(thread);
+        thread.join(1000);
+        assertFalse(thread.isAlive());
+        assertEquals(TimeUnit.MINUTES.toMillis(1), clock.currentTimeMillis());
+    }
+
+    @Test
+    public void checkUnparkBeforeParkIsNotLost() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(0);
+        CountDownLatch unparked = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try {
+                // the latch parks the thread too: the permit of LockSupport is consumed here.
+                unparked.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            clock.parkUntil(this, TimeUnit.HOURS.toNanos(1));
+        });
+        thread.start();
+        while (thread.getState() != Thread.State.WAITING) {
+            Thread.yield();
+        }
+        clock.unpark(thread);
+        unparked.countDown();
+        thread.join(1000);
+        assertFalse(thread.isAlive());
+        assertEquals(0, clock.currentTimeMillis());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkClockCannotGoBack() throws InterruptedException {
+        VirtualClock clock = new VirtualClock(1000);
+        clock.advanceTo(999);
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.cs4j.asset;
+
+import com.github.cs4j.Scheduled;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Service with a scheduled method that completes asynchronously.
+ */
+public class SampleAsyncService {
+
+    public final LinkedBlockingQueue<CompletableFuture<Void>> futures = new LinkedBlockingQueue<>();
+
+    @Scheduled(cron = "* * * * * *")
+    public CompletableFuture<Void> tick() {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        futures.add(future);
+        return future;
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.cs4j.asset;
+
+import com.github.cs4j.Scheduled;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Service with a scheduled method that runs in the "io" executor group.
+ */
+public class SampleIoService {
+
+    public final LinkedBlockingQueue<String> threadNames = new LinkedBlockingQueue<>();
+
+    @Scheduled(cron = "* * * * * *", executor = "io")
+    public void tick() {
+        threadNames.add(Thread.currentThread().getName());
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.cs4j.processor;
+
+import com.github.cs4j.Scheduled;
+import com.github.cs4j.ScheduledRegistrar;
+import com.github.cs4j.Scheduler;
+import com.github.cs4j.SchedulerTask;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ScheduledProcessorTest extends Assert {
+
+    private static final String SERVICE_SOURCE = "package gen;\n" +
+            "public class Service extends BaseService {\n" +
+            "    public int count;\n" +
+            "    @com.github.cs4j.Scheduled(cron = \"0 0 0 1 1 *\")\n" +
+            "    public void tick() {\n" +
+            "        count++;\n" +
+            "    }\n" +
+            "}\n";
+
+    private static final String BASE_SERVICE_SOURCE = "package gen;\n" +
+            "public class BaseService {\n" +
+            "    @com.github.cs4j.Scheduled(cron = \"0 0 0 1 1 *\", executor = \"io\")\n" +
+            "    public static void report() {\n" +
+            "    }\n" +
+            "}\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void checkProcessorIsNotDiscovered() throws Exception {
+        File classes = compile(Collections.emptyList());
+        assertTrue(new File(classes, "gen/Service.class").exists());
+        assertFalse(new File(classes, "gen/Service" + ScheduledRegistrar.CLASS_NAME_SUFFIX + ".class").exists());
+    }
+
+    @Test
+    public void checkGeneratedRegistrarIsUsed() throws Exception {
+        File classes = compile(Arrays.asList("-processor", ScheduledProcessor.class.getName()));
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, Scheduler.class.getClassLoader());
+             Scheduler scheduler = new Scheduler(Executors.newFixedThreadPool(1), 1, 1, TimeUnit.HOURS, "P1")) {
+            Class<?> serviceClass = loader.loadClass("gen.Service");
+            assertNotNull(loader.loadClass("gen.Service" + ScheduledRegistrar.CLASS_NAME_SUFFIX));
+            scheduler.registerExecutor("io", Executors.newSingleThreadExecutor());
+            Object service = serviceClass.getConstructor().newInstance();
+
+            List<SchedulerTask> tasks = scheduler.schedule(service);
+            assertEquals(2, tasks.size());
+            SchedulerTask task = tasks.get(0);
+            // tasks are described by the method as with reflection
+            assertEquals(serviceClass.getMethod("tick"), task.method);
+            assertTrue(task.toString(), task.toString().contains("gen.Service.tick()"));
+            assertEquals(serviceClass.getSuperclass().getMethod("report"), tasks.get(1).method);
+            assertEquals("io", tasks.get(1).executorName);
+
+            // the scheduler thread is in the initial delay: the task runs in this thread only.
+            task.run();
+            assertEquals(1, serviceClass.getField("count").getInt(service));
+        }
+    }
+
+    @NotNull
+    private File compile(@NotNull List<String> options) throws IOException {
+        File sources = folder.newFolder("src", "gen");
+        File classes = folder.newFolder("classes");
+        File service = new File(sources, "Service.java");
+        File baseService = new File(sources, "BaseService.java");
+        Files.write(service.toPath(), SERVICE_SOURCE.getBytes(StandardCharsets.UTF_8));
+        Files.write(baseService.toPath(), BASE_SERVICE_SOURCE.getBytes(StandardCharsets.UTF_8));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertNotNull("Tests must run on JDK", compiler);
+        List<String> args = new ArrayList<>(options);
+        args.addAll(Arrays.asList("-d", classes.getPath(), "-classpath", classPath(Scheduled.class, NotNull.class)));
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            boolean success = compiler.getTask(null, fileManager, null, args, null, fileManager.getJavaFileObjects(service, baseService)).call();
+            assertTrue(success);
+        }
+        return classes;
+    }
+
+    @NotNull
+    private static String classPath(@NotNull Class<?>... classes) {
+        StringBuilder sb = new StringBuilder();
+        for (Class<?> cls : classes) {
+            if (sb.length() > 0) {
+                sb.append(File.pathSeparatorChar);
+            }
+            try {
+                sb.append(new File(cls.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return sb.toString();
+    }
+}